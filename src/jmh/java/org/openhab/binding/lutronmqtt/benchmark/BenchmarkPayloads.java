@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.benchmark;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Builds gateway payloads shaped like those published by a real Lutron-MQTT gateway, for use by the benchmarks.
+ *
+ * @author William Welliver - Initial contribution
+ */
+public final class BenchmarkPayloads {
+    /**
+     * The ObjectId given to the first device; the rest are numbered consecutively.
+     */
+    public static final int FIRST_OBJECT_ID = 100;
+
+    /**
+     * The serial number of the remote added by {@link #listDevices(int, boolean)}; remote events carry it in hex.
+     */
+    public static final int REMOTE_SERIAL = 0xC726CA;
+
+    private BenchmarkPayloads() {
+    }
+
+    /**
+     * @return a ListDevices event describing deviceCount devices.
+     */
+    public static byte[] listDevices(int deviceCount) {
+        return listDevices(deviceCount, false);
+    }
+
+    /**
+     * @return a ListDevices event describing deviceCount dimmers, followed, if withRemote is set, by a remote with
+     *         ObjectId FIRST_OBJECT_ID + deviceCount and serial number {@link #REMOTE_SERIAL}.
+     */
+    public static byte[] listDevices(int deviceCount, boolean withRemote) {
+        StringBuilder sb = new StringBuilder(deviceCount * 160);
+        sb.append("{\"cmd\":\"ListDevices\",\"args\":[");
+        for (int i = 0; i < deviceCount; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            int objectId = FIRST_OBJECT_ID + i;
+            sb.append("{\"ObjectId\":").append(objectId);
+            sb.append(",\"Name\":\"Dimmer ").append(i).append('"');
+            sb.append(",\"Description\":\"Room ").append(i / 8).append(" Lights\"");
+            sb.append(",\"SerialNumber\":").append(20000000 + i);
+            sb.append(",\"DeviceClass\":").append(70189825);
+            sb.append(",\"LinkAddress\":").append(i % 64);
+            sb.append(",\"IntegrationId\":").append(0);
+            sb.append(",\"Properties\":[]}");
+        }
+        if (withRemote) {
+            sb.append(deviceCount > 0 ? "," : "");
+            sb.append("{\"ObjectId\":").append(FIRST_OBJECT_ID + deviceCount);
+            sb.append(",\"Name\":\"Remote\",\"Description\":\"Pico\"");
+            sb.append(",\"SerialNumber\":").append(REMOTE_SERIAL);
+            sb.append(",\"DeviceClass\":").append(67371265);
+            sb.append(",\"LinkAddress\":0,\"IntegrationId\":0,\"Properties\":[]}");
+        }
+        sb.append("]}");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return a remote button event from the remote with serial number {@link #REMOTE_SERIAL}.
+     */
+    public static byte[] remoteEvent(String button, String action) {
+        return ("{\"serial\":\"" + Integer.toHexString(REMOTE_SERIAL).toUpperCase() + "\",\"action\":\"" + action
+                + "\",\"button\":\"" + button + "\"}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return a RuntimePropertyUpdate event setting the level of a device.
+     */
+    public static byte[] runtimePropertyUpdate(int objectId, int level) {
+        return ("{\"cmd\":\"RuntimePropertyUpdate\",\"args\":{\"ObjectId\":" + objectId
+                + ",\"ObjectType\":15,\"Properties\":[[1," + level + "]]}}").getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openhab.binding.lutronmqtt.internal.LutronCommandEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures encoding of the commands sent to the gateway, including the copy handed to the MQTT client.
+ *
+ * @author William Welliver - Initial contribution
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandEncodingBenchmark {
+    @Param({ "50" })
+    public int batchSize;
+
+    private int[] objectIds;
+    private int level;
+
+    @Setup
+    public void setUp() {
+        objectIds = new int[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            objectIds[i] = BenchmarkPayloads.FIRST_OBJECT_ID + i;
+        }
+    }
+
+    @Benchmark
+    public byte[] goToLevel() {
+        level = (level + 655) % 65536;
+        return LutronCommandEncoder.get().goToLevel(BenchmarkPayloads.FIRST_OBJECT_ID, level, 0, 0).toByteArray();
+    }
+
+    @Benchmark
+    public byte[] runtimePropertyQuery() {
+        return LutronCommandEncoder.get().runtimePropertyQuery(objectIds, 0, objectIds.length).toByteArray();
+    }
+}
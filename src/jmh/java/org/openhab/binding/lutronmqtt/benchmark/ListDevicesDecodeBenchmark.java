@@ -0,0 +1,59 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openhab.binding.lutronmqtt.internal.LutronMessageDecoder;
+import org.openhab.binding.lutronmqtt.model.LutronGatewayEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures decoding of ListDevices events, as received after every inventory request.
+ *
+ * @author William Welliver - Initial contribution
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListDevicesDecodeBenchmark {
+    @Param({ "50", "200", "500", "2000" })
+    public int deviceCount;
+
+    private final LutronMessageDecoder decoder = new LutronMessageDecoder();
+    private byte[] payload;
+
+    @Setup
+    public void setUp() {
+        payload = BenchmarkPayloads.listDevices(deviceCount);
+    }
+
+    @Benchmark
+    public LutronGatewayEvent decodeListDevices() throws IOException {
+        return decoder.decodeGatewayEvent(payload);
+    }
+}
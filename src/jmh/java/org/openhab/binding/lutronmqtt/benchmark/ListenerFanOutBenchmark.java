@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openhab.binding.lutronmqtt.handler.DeviceStatusListener;
+import org.openhab.binding.lutronmqtt.internal.DeviceStatusListenerRegistry;
+import org.openhab.binding.lutronmqtt.model.LutronDevice;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures delivering a device state change with N registered handlers, each listening to its own device as the
+ * thing handlers do, plus a wildcard listener such as discovery.
+ *
+ * @author William Welliver - Initial contribution
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListenerFanOutBenchmark {
+    @Param({ "10", "100", "1000" })
+    public int handlerCount;
+
+    private final DeviceStatusListenerRegistry registry = new DeviceStatusListenerRegistry();
+    private LutronDevice[] devices;
+    private int next;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        devices = new LutronDevice[handlerCount];
+        for (int i = 0; i < handlerCount; i++) {
+            LutronDevice device = new LutronDevice();
+            device.setObjectId(BenchmarkPayloads.FIRST_OBJECT_ID + i);
+            devices[i] = device;
+            registry.register(device.getObjectId(), new ConsumingListener(blackhole));
+        }
+        registry.register(new ConsumingListener(blackhole));
+    }
+
+    @Benchmark
+    public void notifyDeviceStateChanged() {
+        registry.notifyDeviceStateChanged(devices[next]);
+        next = (next + 1) % devices.length;
+    }
+
+    @Benchmark
+    public void notifyAllDevices() {
+        for (LutronDevice device : devices) {
+            registry.notifyDeviceStateChanged(device);
+        }
+    }
+
+    private static class ConsumingListener implements DeviceStatusListener {
+        private final Blackhole blackhole;
+
+        ConsumingListener(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void onDeviceFound(LutronDevice d) {
+            blackhole.consume(d);
+        }
+
+        @Override
+        public void onDeviceRemoved(LutronDevice d) {
+            blackhole.consume(d);
+        }
+
+        @Override
+        public void onDeviceStateChanged(LutronDevice light) {
+            blackhole.consume(light);
+        }
+    }
+}
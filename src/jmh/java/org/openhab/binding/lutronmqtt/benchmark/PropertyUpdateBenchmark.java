@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.smarthome.core.library.types.PercentType;
+import org.openhab.binding.lutronmqtt.handler.LightStateConverter;
+import org.openhab.binding.lutronmqtt.internal.LutronMessageDecoder;
+import org.openhab.binding.lutronmqtt.model.LutronDevice;
+import org.openhab.binding.lutronmqtt.model.LutronGatewayEvent;
+import org.openhab.binding.lutronmqtt.model.RuntimePropertyUpdateEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the path taken by every level change reported by the gateway: decoding the RuntimePropertyUpdate,
+ * applying it to the device and converting the new level to the state published on the channel.
+ *
+ * @author William Welliver - Initial contribution
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PropertyUpdateBenchmark {
+    private static final int OBJECT_ID = BenchmarkPayloads.FIRST_OBJECT_ID;
+
+    private final LutronMessageDecoder decoder = new LutronMessageDecoder();
+    private final byte[][] payloads = new byte[101][];
+    private final LutronDevice device = new LutronDevice();
+    private int next;
+
+    @Setup
+    public void setUp() {
+        for (int level = 0; level < payloads.length; level++) {
+            payloads[level] = BenchmarkPayloads.runtimePropertyUpdate(OBJECT_ID, level * 655);
+        }
+        device.setObjectId(OBJECT_ID);
+        device.setName("Dimmer");
+    }
+
+    private byte[] nextPayload() {
+        // vary the level so that every update is a real change to the device
+        byte[] payload = payloads[next];
+        next = (next + 1) % payloads.length;
+        return payload;
+    }
+
+    @Benchmark
+    public LutronGatewayEvent decode() throws IOException {
+        return decoder.decodeGatewayEvent(nextPayload());
+    }
+
+    @Benchmark
+    public boolean decodeAndApply() throws IOException {
+        RuntimePropertyUpdateEvent event = (RuntimePropertyUpdateEvent) decoder.decodeGatewayEvent(nextPayload());
+        event.applyTo(device);
+        return device.hasProperty(1);
+    }
+
+    @Benchmark
+    public PercentType decodeApplyAndConvert() throws IOException {
+        RuntimePropertyUpdateEvent event = (RuntimePropertyUpdateEvent) decoder.decodeGatewayEvent(nextPayload());
+        event.applyTo(device);
+        return LightStateConverter.toBrightnessPercentType(device);
+    }
+}
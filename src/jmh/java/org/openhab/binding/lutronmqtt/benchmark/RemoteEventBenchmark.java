@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openhab.binding.lutronmqtt.handler.RemoteEventListener;
+import org.openhab.binding.lutronmqtt.internal.RemoteEventParser;
+import org.openhab.binding.lutronmqtt.internal.RemoteListenerIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the path a button press takes from a lutron/remote payload to the listener of its remote.
+ *
+ * @author William Welliver - Initial contribution
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RemoteEventBenchmark {
+    private static final int FIRST_SERIAL = 0xC72600;
+
+    @Param({ "50" })
+    public int remoteCount;
+
+    private final RemoteListenerIndex index = new RemoteListenerIndex();
+    private byte[] payload;
+    private Blackhole blackhole;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        this.blackhole = blackhole;
+        RemoteEventListener listener = new RemoteEventListener() {
+            @Override
+            public void onRemoteEvent(String button, String action) {
+                RemoteEventBenchmark.this.blackhole.consume(button);
+                RemoteEventBenchmark.this.blackhole.consume(action);
+            }
+        };
+        for (int i = 0; i < remoteCount; i++) {
+            index.register(FIRST_SERIAL + i, listener);
+        }
+        payload = ("{\"serial\" : \"" + Integer.toHexString(FIRST_SERIAL + remoteCount / 2).toUpperCase()
+                + "\", \"action\": \"down\", \"button\": \"select\"}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public boolean parseAndRoute() throws IOException {
+        RemoteEventParser parser = RemoteEventParser.get();
+        if (!parser.parse(payload)) {
+            return false;
+        }
+        RemoteEventListener listener = index.get(parser.getSerial());
+        if (listener == null) {
+            return false;
+        }
+        listener.onRemoteEvent(parser.getButton(), parser.getAction());
+        return true;
+    }
+}
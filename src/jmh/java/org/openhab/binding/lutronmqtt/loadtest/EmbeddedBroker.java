@@ -0,0 +1,61 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.loadtest;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Properties;
+
+import io.moquette.BrokerConstants;
+import io.moquette.broker.Server;
+import io.moquette.broker.config.MemoryConfig;
+
+/**
+ * An in-process MQTT broker on a free local port, holding nothing on disk.
+ *
+ * @author William Welliver - Initial contribution
+ */
+public class EmbeddedBroker {
+    private final Server server = new Server();
+    private int port;
+
+    public void start() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+
+        Properties properties = new Properties();
+        properties.setProperty(BrokerConstants.HOST_PROPERTY_NAME, "127.0.0.1");
+        properties.setProperty(BrokerConstants.PORT_PROPERTY_NAME, Integer.toString(port));
+        properties.setProperty(BrokerConstants.WEB_SOCKET_PORT_PROPERTY_NAME, BrokerConstants.DISABLED_PORT_BIND);
+        properties.setProperty(BrokerConstants.PERSISTENT_STORE_PROPERTY_NAME, "");
+        properties.setProperty(BrokerConstants.ALLOW_ANONYMOUS_PROPERTY_NAME, "true");
+        server.startServer(new MemoryConfig(properties));
+    }
+
+    public void stop() {
+        server.stopServer();
+    }
+
+    public String getHost() {
+        return "127.0.0.1";
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public String getUrl() {
+        return "tcp://" + getHost() + ":" + port;
+    }
+}
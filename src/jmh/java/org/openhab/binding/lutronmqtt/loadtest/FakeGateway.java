@@ -0,0 +1,195 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.loadtest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.eclipse.smarthome.io.transport.mqtt.MqttBrokerConnection;
+import org.eclipse.smarthome.io.transport.mqtt.MqttMessageSubscriber;
+import org.openhab.binding.lutronmqtt.benchmark.BenchmarkPayloads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * A scripted stand-in for the Lutron-MQTT gateway. It answers GetDevices, RuntimePropertyQuery and GoToLevel
+ * commands the way the gateway does, publishes its running status, and can publish level changes and remote button
+ * events at fixed rates.
+ *
+ * Devices are numbered from {@link BenchmarkPayloads#FIRST_OBJECT_ID}. The first reservedDevices are left out of
+ * the generated level changes, so that a level reported for them can only be the answer to a command. The inventory
+ * ends with a remote, whose select button is pressed and released in turn by the generated remote events.
+ *
+ * @author William Welliver - Initial contribution
+ */
+public class FakeGateway implements MqttMessageSubscriber {
+    private static final String STATUS_TOPIC = "lutron/status";
+    private static final String EVENTS_TOPIC = "lutron/events";
+    private static final String REMOTE_TOPIC = "lutron/remote";
+    private static final String COMMAND_TOPIC = "lutron/commands";
+    private static final long TICK_MILLIS = 10;
+
+    private final Logger logger = LoggerFactory.getLogger(FakeGateway.class);
+
+    private final MqttBrokerConnection connection;
+    private final int deviceCount;
+    private final int reservedDevices;
+    private final AtomicLongArray lastPublished;
+    private final AtomicLong updatesPublished = new AtomicLong();
+    private final AtomicLong remoteEventsPublished = new AtomicLong();
+    private volatile long lastRemotePublished;
+    private final AtomicLong commandsReceived = new AtomicLong();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "fake-lutron-gateway");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public FakeGateway(String host, int port, int deviceCount, int reservedDevices) {
+        this.connection = new MqttBrokerConnection(host, port, false, "fake-lutron-gateway");
+        this.deviceCount = deviceCount;
+        this.reservedDevices = reservedDevices;
+        this.lastPublished = new AtomicLongArray(deviceCount);
+    }
+
+    public void start() throws Exception {
+        connection.start().get(10, TimeUnit.SECONDS);
+        connection.subscribe(COMMAND_TOPIC, this).get(10, TimeUnit.SECONDS);
+        publishStatus();
+        executor.scheduleAtFixedRate(this::publishStatus, 30, 30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Starts publishing level changes for random devices and remote button events at the given rates per second.
+     */
+    public void startTraffic(final double updateRate, final double remoteRate) {
+        executor.scheduleAtFixedRate(new Runnable() {
+            private double updatesDue;
+            private double remoteEventsDue;
+
+            @Override
+            public void run() {
+                updatesDue += updateRate * TICK_MILLIS / 1000;
+                remoteEventsDue += remoteRate * TICK_MILLIS / 1000;
+                for (; updatesDue >= 1; updatesDue--) {
+                    publishRandomUpdate();
+                }
+                for (; remoteEventsDue >= 1; remoteEventsDue--) {
+                    publishRemoteEvent();
+                }
+            }
+        }, 0, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        executor.shutdownNow();
+        connection.stop();
+    }
+
+    /**
+     * @return the System.nanoTime() at which a level was last published for the device, or 0 if none was.
+     */
+    public long getLastPublished(int objectId) {
+        return lastPublished.get(objectId - BenchmarkPayloads.FIRST_OBJECT_ID);
+    }
+
+    /**
+     * @return the ObjectId of the remote in the inventory.
+     */
+    public int getRemoteObjectId() {
+        return BenchmarkPayloads.FIRST_OBJECT_ID + deviceCount;
+    }
+
+    /**
+     * @return the System.nanoTime() at which the last remote event was published, or 0 if none was.
+     */
+    public long getLastRemotePublished() {
+        return lastRemotePublished;
+    }
+
+    public long getUpdatesPublished() {
+        return updatesPublished.get();
+    }
+
+    public long getRemoteEventsPublished() {
+        return remoteEventsPublished.get();
+    }
+
+    public long getCommandsReceived() {
+        return commandsReceived.get();
+    }
+
+    @Override
+    public void processMessage(String topic, byte[] payload) {
+        commandsReceived.incrementAndGet();
+        JsonObject command = new JsonParser().parse(new String(payload, StandardCharsets.UTF_8)).getAsJsonObject();
+        JsonObject args = command.getAsJsonObject("args");
+        switch (command.get("cmd").getAsString()) {
+            case "GetDevices":
+                publish(EVENTS_TOPIC, BenchmarkPayloads.listDevices(deviceCount, true));
+                break;
+            case "RuntimePropertyQuery":
+                for (JsonElement param : args.getAsJsonArray("Params")) {
+                    int objectId = ((JsonArray) param).get(0).getAsInt();
+                    publishLevel(objectId, 0);
+                }
+                break;
+            case "GoToLevel":
+                publishLevel(args.get("ObjectId").getAsInt(), args.get("Level").getAsInt());
+                break;
+            default:
+                logger.warn("Unexpected command: {}", command);
+                break;
+        }
+    }
+
+    private void publishStatus() {
+        publish(STATUS_TOPIC, "{\"state\":\"running\"}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void publishRandomUpdate() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int index = reservedDevices + random.nextInt(deviceCount - reservedDevices);
+        publishLevel(BenchmarkPayloads.FIRST_OBJECT_ID + index, random.nextInt(65536));
+        updatesPublished.incrementAndGet();
+    }
+
+    private void publishRemoteEvent() {
+        boolean down = remoteEventsPublished.get() % 2 == 0;
+        lastRemotePublished = System.nanoTime();
+        publish(REMOTE_TOPIC, BenchmarkPayloads.remoteEvent("select", down ? "down" : "up"));
+        remoteEventsPublished.incrementAndGet();
+    }
+
+    private void publishLevel(int objectId, int level) {
+        int index = objectId - BenchmarkPayloads.FIRST_OBJECT_ID;
+        if (index >= 0 && index < deviceCount) {
+            lastPublished.set(index, System.nanoTime());
+        }
+        publish(EVENTS_TOPIC, BenchmarkPayloads.runtimePropertyUpdate(objectId, level));
+    }
+
+    private void publish(String topic, byte[] payload) {
+        connection.publish(topic, payload, 0, false);
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects latency samples and reports their percentiles.
+ *
+ * @author William Welliver - Initial contribution
+ */
+public class LatencyRecorder {
+    private final String name;
+    private long[] samples = new long[1 << 16];
+    private int count;
+
+    public LatencyRecorder(String name) {
+        this.name = name;
+    }
+
+    public synchronized void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+    }
+
+    public synchronized int getCount() {
+        return count;
+    }
+
+    public synchronized void reset() {
+        count = 0;
+    }
+
+    /**
+     * @return a line with the sample count and the p50, p90, p99, p99.9 and maximum latency in milliseconds.
+     */
+    public synchronized String report() {
+        if (count == 0) {
+            return String.format("%-22s no samples", name);
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        return String.format("%-22s n=%-8d p50=%8.2f p90=%8.2f p99=%8.2f p99.9=%8.2f max=%8.2f ms", name, count,
+                millis(percentile(sorted, 50)), millis(percentile(sorted, 90)), millis(percentile(sorted, 99)),
+                millis(percentile(sorted, 99.9)), millis(sorted[sorted.length - 1]));
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,325 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.loadtest;
+
+import static org.openhab.binding.lutronmqtt.LutronMQTTBindingConstants.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+import org.eclipse.smarthome.config.core.ConfigConstants;
+import org.eclipse.smarthome.config.core.Configuration;
+import org.eclipse.smarthome.core.library.types.PercentType;
+import org.eclipse.smarthome.core.thing.Bridge;
+import org.eclipse.smarthome.core.thing.ChannelUID;
+import org.eclipse.smarthome.core.thing.Thing;
+import org.eclipse.smarthome.core.thing.ThingTypeUID;
+import org.eclipse.smarthome.core.thing.ThingUID;
+import org.eclipse.smarthome.core.thing.binding.builder.BridgeBuilder;
+import org.eclipse.smarthome.core.thing.binding.builder.ThingBuilder;
+import org.eclipse.smarthome.core.types.State;
+import org.openhab.binding.lutronmqtt.benchmark.BenchmarkPayloads;
+import org.openhab.binding.lutronmqtt.handler.LutronMQTTDimmableLightHandler;
+import org.openhab.binding.lutronmqtt.handler.LutronMQTTHubHandler;
+import org.openhab.binding.lutronmqtt.handler.LutronMQTTRemoteHandler;
+import org.openhab.binding.lutronmqtt.internal.CommandPublisher;
+
+/**
+ * Drives a real {@link LutronMQTTHubHandler} against a {@link FakeGateway} through an {@link EmbeddedBroker}, with a
+ * real dimmer thing handler for every device and a real remote thing handler, all reporting to a
+ * {@link RecordingCallback}, and reports:
+ * <ul>
+ * <li>update latency: from the gateway publishing a level to the dimmer handler's updateState, measured against the
+ * most recent level published for the device</li>
+ * <li>remote latency: from the gateway publishing a button event to the remote handler's triggerChannel</li>
+ * <li>command round trip: from a command to a dimmer handler to its updateState with the level confirmed by the
+ * gateway</li>
+ * </ul>
+ *
+ * Settings are read from system properties: lutron.load.devices (1000), lutron.load.updateRate (500 per second),
+ * lutron.load.remoteRate (5 per second), lutron.load.commandRate (10 per second), lutron.load.warmup (10 seconds),
+ * lutron.load.duration (60 seconds), and lutron.load.coalesceDelay and lutron.load.commandDebounce to override the
+ * bridge's defaults.
+ *
+ * @author William Welliver - Initial contribution
+ */
+public class LoadGenerator {
+    private static final int COMMAND_DEVICES = 20;
+    private static final long COMMAND_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final int deviceCount = Integer.getInteger("lutron.load.devices", 1000);
+    private final double updateRate = Double.parseDouble(System.getProperty("lutron.load.updateRate", "500"));
+    private final double remoteRate = Double.parseDouble(System.getProperty("lutron.load.remoteRate", "5"));
+    private final double commandRate = Double.parseDouble(System.getProperty("lutron.load.commandRate", "10"));
+    private final int warmupSeconds = Integer.getInteger("lutron.load.warmup", 10);
+    private final int durationSeconds = Integer.getInteger("lutron.load.duration", 60);
+
+    private final LatencyRecorder updateLatency = new LatencyRecorder("update latency");
+    private final LatencyRecorder remoteLatency = new LatencyRecorder("remote latency");
+    private final LatencyRecorder commandRoundTrip = new LatencyRecorder("command round trip");
+    private final AtomicLong stateUpdates = new AtomicLong();
+    private final AtomicLong lostCommands = new AtomicLong();
+    private final AtomicIntegerArray pendingLevels = new AtomicIntegerArray(COMMAND_DEVICES);
+    private final AtomicLongArray pendingSince = new AtomicLongArray(COMMAND_DEVICES);
+    private final Map<ThingUID, Integer> dimmerIndexes = new HashMap<>();
+    private AtomicIntegerArray publishedPercents;
+    private LutronMQTTDimmableLightHandler[] dimmers;
+    private LutronMQTTRemoteHandler remote;
+
+    private final EmbeddedBroker broker = new EmbeddedBroker();
+    private FakeGateway gateway;
+    private LutronMQTTHubHandler hub;
+
+    public static void main(String[] args) throws Exception {
+        // a device snapshot left by an earlier run would be restored and skew the inventory timing, so every run
+        // starts from an empty userdata folder.
+        Path userData = Files.createTempDirectory("lutron-loadtest");
+        System.setProperty(ConfigConstants.USERDATA_DIR_PROG_ARGUMENT, userData.toString());
+        try {
+            new LoadGenerator().run();
+        } finally {
+            deleteRecursively(userData);
+        }
+        // the bridge's scheduler threads are not daemons
+        System.exit(0);
+    }
+
+    public void run() throws Exception {
+        if (deviceCount <= COMMAND_DEVICES) {
+            throw new IllegalArgumentException("lutron.load.devices must be more than " + COMMAND_DEVICES);
+        }
+        System.out.println(String.format("%d devices, %.0f updates/s, %.0f remote events/s, %.0f commands/s",
+                deviceCount, updateRate, remoteRate, commandRate));
+
+        broker.start();
+        gateway = new FakeGateway(broker.getHost(), broker.getPort(), deviceCount, COMMAND_DEVICES);
+        gateway.start();
+
+        RecordingCallback callback = RecordingCallback.create(new Recorder());
+        Bridge bridge = createBridge();
+        hub = new LutronMQTTHubHandler(bridge);
+        bridge.setHandler(hub);
+        callback.addBridge(bridge);
+        hub.setCallback(callback);
+        long start = System.nanoTime();
+        hub.initialize();
+        awaitInventory();
+        System.out.println(String.format("inventory of %d devices received after %d ms", hub.getDeviceCount(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+
+        createThingHandlers(bridge.getUID(), callback);
+
+        ScheduledExecutorService commands = Executors.newSingleThreadScheduledExecutor();
+        try {
+            gateway.startTraffic(updateRate, remoteRate);
+            if (commandRate > 0) {
+                commands.scheduleAtFixedRate(this::sendCommand, 0, (long) (1000000 / commandRate),
+                        TimeUnit.MICROSECONDS);
+            }
+
+            TimeUnit.SECONDS.sleep(warmupSeconds);
+            updateLatency.reset();
+            remoteLatency.reset();
+            commandRoundTrip.reset();
+            long updatesBefore = gateway.getUpdatesPublished();
+            long stateUpdatesBefore = stateUpdates.get();
+            lostCommands.set(0);
+
+            TimeUnit.SECONDS.sleep(durationSeconds);
+
+            report(gateway.getUpdatesPublished() - updatesBefore, stateUpdates.get() - stateUpdatesBefore);
+        } finally {
+            commands.shutdownNow();
+            for (LutronMQTTDimmableLightHandler dimmer : dimmers) {
+                dimmer.dispose();
+            }
+            remote.dispose();
+            hub.dispose();
+            gateway.stop();
+            broker.stop();
+        }
+    }
+
+    private static void deleteRecursively(Path folder) throws IOException {
+        try (Stream<Path> paths = Files.walk(folder)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private Bridge createBridge() {
+        Map<String, Object> configuration = new HashMap<>();
+        configuration.put(CONFIG_TOKEN, "loadtest");
+        configuration.put("metricsEnabled", Boolean.TRUE);
+        // a command's round trip ends with the gateway's confirmation, not with the level shown optimistically.
+        configuration.put("optimisticUpdates", Boolean.FALSE);
+        Integer coalesceDelay = Integer.getInteger("lutron.load.coalesceDelay");
+        if (coalesceDelay != null) {
+            configuration.put("coalesceDelay", new BigDecimal(coalesceDelay));
+        }
+        Integer commandDebounce = Integer.getInteger("lutron.load.commandDebounce");
+        if (commandDebounce != null) {
+            configuration.put("commandDebounce", new BigDecimal(commandDebounce));
+        }
+
+        Map<String, String> properties = new HashMap<>();
+        properties.put(PROPERTY_URL, broker.getUrl());
+
+        return BridgeBuilder.create(THING_TYPE_MQTTHUB, "loadtest").withConfiguration(new Configuration(configuration))
+                .withProperties(properties).build();
+    }
+
+    /**
+     * Creates and initializes a dimmer handler for every device and a remote handler for the remote, as the
+     * framework would for things added under the bridge.
+     */
+    private void createThingHandlers(ThingUID bridgeUID, RecordingCallback callback) {
+        dimmers = new LutronMQTTDimmableLightHandler[deviceCount];
+        publishedPercents = new AtomicIntegerArray(deviceCount);
+        for (int i = 0; i < deviceCount; i++) {
+            int objectId = BenchmarkPayloads.FIRST_OBJECT_ID + i;
+            Thing thing = createThing(THING_TYPE_DIMMABLE_LIGHT, bridgeUID, "dimmer" + objectId, objectId);
+            dimmerIndexes.put(thing.getUID(), i);
+            publishedPercents.set(i, -1);
+            dimmers[i] = new LutronMQTTDimmableLightHandler(thing);
+        }
+        Thing remoteThing = createThing(THING_TYPE_REMOTE, bridgeUID, "remote", gateway.getRemoteObjectId());
+        remote = new LutronMQTTRemoteHandler(remoteThing);
+
+        for (LutronMQTTDimmableLightHandler dimmer : dimmers) {
+            dimmer.setCallback(callback);
+            dimmer.getThing().setHandler(dimmer);
+            dimmer.initialize();
+        }
+        remote.setCallback(callback);
+        remoteThing.setHandler(remote);
+        remote.initialize();
+    }
+
+    private static Thing createThing(ThingTypeUID thingTypeUID, ThingUID bridgeUID, String id, int objectId) {
+        Map<String, String> properties = new HashMap<>();
+        properties.put(PROPERTY_OBJECT_ID, String.valueOf(objectId));
+        return ThingBuilder.create(thingTypeUID, bridgeUID, id).withBridge(bridgeUID).withProperties(properties)
+                .build();
+    }
+
+    private void awaitInventory() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(2);
+        while (hub.getDeviceCount() < deviceCount) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException(
+                        "Only " + hub.getDeviceCount() + " of " + deviceCount + " devices were received");
+            }
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+    }
+
+    private void sendCommand() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int index = random.nextInt(COMMAND_DEVICES);
+        long since = pendingSince.get(index);
+        if (since != 0) {
+            if (System.nanoTime() - since < COMMAND_TIMEOUT_NANOS || !pendingSince.compareAndSet(index, since, 0)) {
+                // the previous command for this device has not been confirmed yet
+                return;
+            }
+            lostCommands.incrementAndGet();
+        }
+        // a level the handler already shows would not be published again, so it could never be confirmed.
+        int percent;
+        do {
+            percent = random.nextInt(101);
+        } while (percent == publishedPercents.get(index));
+
+        LutronMQTTDimmableLightHandler dimmer = dimmers[index];
+        pendingLevels.set(index, percent);
+        pendingSince.set(index, System.nanoTime());
+        dimmer.handleCommand(new ChannelUID(dimmer.getThing().getUID(), CHANNEL_LIGHT_LEVEL), new PercentType(percent));
+    }
+
+    private void report(long updatesPublished, long stateUpdatesSeen) {
+        System.out.println();
+        System.out.println(String.format("%d updates published, %d channel updates (%.1f%% after coalescing)",
+                updatesPublished, stateUpdatesSeen,
+                updatesPublished == 0 ? 0.0 : 100.0 * stateUpdatesSeen / updatesPublished));
+        System.out.println(updateLatency.report());
+        System.out.println(remoteLatency.report());
+        System.out.println(commandRoundTrip.report());
+
+        CommandPublisher publisher = hub.getCommandPublisher();
+        System.out.println(String.format(
+                "commands: %d requested, %d sent, %d published (avg %d us), %d failed, %d unconfirmed after %d s",
+                hub.getLevelCommandsRequested(), hub.getLevelCommandsSent(), publisher.getPublishedCount(),
+                publisher.getAverageLatencyMicros(), publisher.getFailedCount(), lostCommands.get(),
+                TimeUnit.NANOSECONDS.toSeconds(COMMAND_TIMEOUT_NANOS)));
+        System.out.println(String.format("gateway: %d commands received, %d remote events published",
+                gateway.getCommandsReceived(), gateway.getRemoteEventsPublished()));
+        System.out.println(String.format(
+                "inbound queue %d (lag %d ms), listener queue %d (lag %d ms), %d shed, %d coalesced",
+                hub.getInboundQueueDepth(), hub.getInboundLagMillis(), hub.getListenerQueueDepth(),
+                hub.getListenerLagMillis(), hub.getShedMessageCount(), hub.getCoalescedMessageCount()));
+    }
+
+    /**
+     * Times what the thing handlers publish: level updates from the dimmers, and button events from the remote.
+     */
+    private class Recorder implements RecordingCallback.Recorder {
+        @Override
+        public void stateUpdated(ChannelUID channelUID, State state, long nanos) {
+            Integer index = dimmerIndexes.get(channelUID.getThingUID());
+            if (index == null || !(state instanceof PercentType)) {
+                return;
+            }
+            int percent = ((PercentType) state).intValue();
+            publishedPercents.set(index, percent);
+            stateUpdates.incrementAndGet();
+
+            if (index < COMMAND_DEVICES) {
+                long since = pendingSince.get(index);
+                if (since != 0 && percent == pendingLevels.get(index) && pendingSince.compareAndSet(index, since, 0)) {
+                    commandRoundTrip.record(nanos - since);
+                }
+                return;
+            }
+
+            long published = gateway.getLastPublished(BenchmarkPayloads.FIRST_OBJECT_ID + index);
+            if (published != 0) {
+                updateLatency.record(nanos - published);
+            }
+        }
+
+        @Override
+        public void channelTriggered(ChannelUID channelUID, String event, long nanos) {
+            // every event reaches the button channel; the per-button channels would count it twice.
+            if (!CHANNEL_REMOTE_EVENT.equals(channelUID.getId())) {
+                return;
+            }
+            long published = gateway.getLastRemotePublished();
+            if (published != 0) {
+                remoteLatency.record(nanos - published);
+            }
+        }
+    }
+}
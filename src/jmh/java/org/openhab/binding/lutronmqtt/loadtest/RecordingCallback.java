@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.loadtest;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.smarthome.core.thing.Bridge;
+import org.eclipse.smarthome.core.thing.ChannelUID;
+import org.eclipse.smarthome.core.thing.Thing;
+import org.eclipse.smarthome.core.thing.ThingStatusInfo;
+import org.eclipse.smarthome.core.thing.ThingUID;
+import org.eclipse.smarthome.core.thing.binding.ThingHandlerCallback;
+import org.eclipse.smarthome.core.types.State;
+import org.mockito.Mockito;
+
+/**
+ * Stands in for the framework behind every thing handler of the load test: it keeps the status handlers report on
+ * their things, hands out the bridge, and passes each state update and channel trigger on to a {@link Recorder},
+ * stamped with the time it arrived.
+ *
+ * Only what the handlers need is implemented; {@link #create(Recorder)} leaves the rest of the callback to Mockito.
+ *
+ * @author William Welliver - Initial contribution
+ */
+public abstract class RecordingCallback implements ThingHandlerCallback {
+
+    /**
+     * Receives what the thing handlers publish.
+     */
+    public interface Recorder {
+        void stateUpdated(ChannelUID channelUID, State state, long nanos);
+
+        void channelTriggered(ChannelUID channelUID, String event, long nanos);
+    }
+
+    private final Map<ThingUID, Bridge> bridges = new ConcurrentHashMap<>();
+    private volatile Recorder recorder;
+
+    /**
+     * @return a callback passing updates to the given recorder.
+     */
+    public static RecordingCallback create(Recorder recorder) {
+        RecordingCallback callback = Mockito.spy(RecordingCallback.class);
+        callback.recorder = recorder;
+        return callback;
+    }
+
+    /**
+     * Makes a bridge available to the handlers of its things.
+     */
+    public void addBridge(Bridge bridge) {
+        bridges.put(bridge.getUID(), bridge);
+    }
+
+    @Override
+    public void stateUpdated(ChannelUID channelUID, State state) {
+        recorder.stateUpdated(channelUID, state, System.nanoTime());
+    }
+
+    @Override
+    public void channelTriggered(Thing thing, ChannelUID channelUID, String event) {
+        recorder.channelTriggered(channelUID, event, System.nanoTime());
+    }
+
+    @Override
+    public void statusUpdated(Thing thing, ThingStatusInfo thingStatus) {
+        thing.setStatusInfo(thingStatus);
+    }
+
+    @Override
+    public Bridge getBridge(ThingUID bridgeUID) {
+        return bridges.get(bridgeUID);
+    }
+}
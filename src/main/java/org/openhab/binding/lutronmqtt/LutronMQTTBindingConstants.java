@@ -38,13 +38,14 @@ public class LutronMQTTBindingConstants {
     public final static ThingTypeUID THING_TYPE_VARIABLE_FAN = new ThingTypeUID(BINDING_ID, "variableFan");
     public final static ThingTypeUID THING_TYPE_REMOTE = new ThingTypeUID(BINDING_ID, "remote");
     public final static ThingTypeUID THING_TYPE_SHADE = new ThingTypeUID(BINDING_ID, "shade");
+    public final static ThingTypeUID THING_TYPE_GROUP = new ThingTypeUID(BINDING_ID, "group");
 
     public final static Set<ThingTypeUID> SUPPORTED_HUBS_UIDS = Collections
             .unmodifiableSet(Stream.of(THING_TYPE_MQTTHUB).collect(Collectors.toSet()));
 
     public final static Set<ThingTypeUID> SUPPORTED_THING_TYPES_UIDS = Collections
             .unmodifiableSet(Stream.of(THING_TYPE_DIMMABLE_LIGHT, THING_TYPE_LIGHT, THING_TYPE_SHADE,
-                    THING_TYPE_VARIABLE_FAN, THING_TYPE_REMOTE).collect(Collectors.toSet()));
+                    THING_TYPE_VARIABLE_FAN, THING_TYPE_REMOTE, THING_TYPE_GROUP).collect(Collectors.toSet()));
 
     // List of all Channel ids
     public final static String PROPERTY_UUID = "uuid";
@@ -57,6 +58,10 @@ public class LutronMQTTBindingConstants {
 
     public final static String CONFIG_TOKEN = "token";
 
+    // channel configuration: the fade and delay, in seconds, of level changes made through the channel
+    public final static String CONFIG_FADE = "fade";
+    public final static String CONFIG_DELAY = "delay";
+
     // List of all Channel ids
     public final static String CHANNEL_LIGHT_LEVEL = "lightlevel";
     public final static String CHANNEL_LIGHT_STATE = "state";
@@ -69,6 +74,12 @@ public class LutronMQTTBindingConstants {
 
     public final static String CHANNEL_SHADE_LEVEL = "shadeLevel";
 
+    public final static String CHANNEL_GROUP_SCENE = "scene";
+
+    // trigger channels of a remote: one per Pico button, plus one carrying every event as BUTTON_ACTION
+    public final static String CHANNEL_REMOTE_EVENT = "button";
+    public final static String[] CHANNEL_REMOTE_BUTTONS = { "on", "off", "select", "raise", "lower" };
+
     public final static int LUTRON_PROPERTY_LEVEL = 1;
 
     static final public Set<Integer> lightDeviceClasses = new HashSet<>();
@@ -2,7 +2,6 @@ package org.openhab.binding.lutronmqtt.discovery;
 
 import static org.openhab.binding.lutronmqtt.internal.LutronMQTTHandlerFactory.SUPPORTED_THING_TYPES_UIDS;
 
-import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -17,6 +16,7 @@ import org.eclipse.smarthome.core.thing.ThingUID;
 import org.openhab.binding.lutronmqtt.LutronMQTTBindingConstants;
 import org.openhab.binding.lutronmqtt.handler.DeviceStatusListener;
 import org.openhab.binding.lutronmqtt.handler.LutronMQTTHubHandler;
+import org.openhab.binding.lutronmqtt.internal.DeviceRegistry;
 import org.openhab.binding.lutronmqtt.model.LutronDevice;
 import org.osgi.service.component.annotations.Component;
 import org.slf4j.Logger;
@@ -62,11 +62,12 @@ public class LutronMQTTDeviceDiscoveryService extends AbstractDiscoveryService i
     }
 
     protected void doScan() {
-        logger.warn("starting scan");
-        Collection<LutronDevice> devices = hubHandler.getDevices();
+        // a snapshot is one consistent view of the inventory, even if the gateway reports a new one during the scan.
+        DeviceRegistry.Snapshot snapshot = hubHandler.getDeviceSnapshot();
+        logger.debug("starting scan of {} devices (inventory version {})", snapshot.size(), snapshot.getVersion());
 
-        for (LutronDevice d : devices) {
-            logger.info("DEVICE: " + d);
+        for (LutronDevice d : snapshot.getDevices()) {
+            logger.debug("DEVICE: {}", d);
             onDeviceFound(d);
         }
     }
@@ -92,7 +93,7 @@ public class LutronMQTTDeviceDiscoveryService extends AbstractDiscoveryService i
             // properties.put(LutronMQTTBindingConstants.PROPERTY_LINK_ADDRESS, "" + d.getObjectId());
             properties.put(LutronMQTTBindingConstants.PROPERTY_OBJECT_NAME, d.getName());
 
-            logger.warn("discovery result " + d.getName() + " " + d.getObjectId());
+            logger.debug("discovery result {} {}", d.getName(), d.getObjectId());
 
             DiscoveryResult discoveryResult = DiscoveryResultBuilder.create(thingUID).withThingType(thingTypeUID)
                     .withProperties(properties).withBridge(bridgeUID).withLabel(d.getName()).build();
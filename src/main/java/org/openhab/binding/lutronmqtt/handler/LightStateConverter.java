@@ -2,9 +2,6 @@ package org.openhab.binding.lutronmqtt.handler;
 
 import static org.openhab.binding.lutronmqtt.LutronMQTTBindingConstants.LUTRON_PROPERTY_LEVEL;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import org.eclipse.smarthome.core.library.types.IncreaseDecreaseType;
 import org.eclipse.smarthome.core.library.types.OnOffType;
 import org.eclipse.smarthome.core.library.types.PercentType;
@@ -60,57 +57,16 @@ public class LightStateConverter {
         return f;
     }
 
-    public static Map<String, Object> toLightState(OnOffType onOffType, LutronDevice device) {
-        int level = toOnOffLightState(onOffType);
-        Map<String, Object> m = makeGoToLevelCommand(level, device);
-        return m;
-    }
-
-    public static Map<String, Object> makeGoToLevelCommand(int level, LutronDevice device) {
-        Map<String, Object> a = new HashMap<>();
-        log.warn("device: " + device);
-        a.put("ObjectId", device.getObjectId());
-        a.put("ObjectType", 15);
-        a.put("Fade", 0);
-        a.put("Delay", 0);
-        a.put("Level", level);
-        Map<String, Object> m = new HashMap<>();
-        m.put("cmd", "GoToLevel");
-        m.put("args", a);
-
-        return m;
-    }
-
     /**
-     * Transforms the given {@link PercentType} into a light state containing
-     * the brightness and the 'on' value represented by {@link PercentType}.
+     * Returns the device's last reported level, treating a level that has not been reported yet as off.
      *
-     * @param percentType
-     *            brightness represented as {@link PercentType}
-     * @return light state containing the brightness and the 'on' value
+     * @param device
+     *            lutron device
+     * @return the level, between 0 and 65535
      */
-    public static Map<String, Object> toLightState(PercentType percentType, LutronDevice device) {
-        int level = toPercentLightState(percentType);
-
-        Map<String, Object> m = makeGoToLevelCommand(level, device);
-
-        return m;
-    }
-
-    public static Map<String, Object> toLightState(IncreaseDecreaseType increaseDecreaseType, LutronDevice device) {
-        int level = toAdjustedBrightness(increaseDecreaseType, device.getProperty(LUTRON_PROPERTY_LEVEL));
-
-        Map<String, Object> m = makeGoToLevelCommand(level, device);
-
-        return m;
-    }
-
-    public static Map<String, Object> toLightState(UpDownType upDownType, LutronDevice device) {
-        int level = toAdjustedBrightness(upDownType, device.getProperty(LUTRON_PROPERTY_LEVEL));
-
-        Map<String, Object> m = makeGoToLevelCommand(level, device);
-
-        return m;
+    public static int getLevel(LutronDevice device) {
+        int level = device.getProperty(LUTRON_PROPERTY_LEVEL);
+        return level == LutronDevice.PROPERTY_UNKNOWN ? 0 : level;
     }
 
     /**
@@ -162,10 +118,21 @@ public class LightStateConverter {
      * @return percent type representing the brightness
      */
     public static PercentType toBrightnessPercentType(LutronDevice device) {
-        int percent = (int) Math.round(device.getProperty(LUTRON_PROPERTY_LEVEL) / (65535 / 100));
+        return toBrightnessPercentType(getLevel(device));
+    }
+
+    /**
+     * Transforms a Lutron level into {@link PercentType} representing
+     * the brightness.
+     *
+     * @param level
+     *            level between 0 and 65535
+     * @return percent type representing the brightness
+     */
+    public static PercentType toBrightnessPercentType(int level) {
+        int percent = (int) Math.round(level / (65535 / 100));
         if (log.isTraceEnabled()) {
-            log.trace("Converting " + device.getProperty(LUTRON_PROPERTY_LEVEL) + " -> " + percent + " -> "
-                    + new PercentType(restrictToBounds(percent)));
+            log.trace("Converting " + level + " -> " + percent + " -> " + new PercentType(restrictToBounds(percent)));
         }
         return new PercentType(restrictToBounds(percent));
     }
@@ -0,0 +1,244 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.handler;
+
+import static org.openhab.binding.lutronmqtt.LutronMQTTBindingConstants.*;
+
+import java.util.Arrays;
+
+import org.eclipse.smarthome.core.library.types.OnOffType;
+import org.eclipse.smarthome.core.library.types.PercentType;
+import org.eclipse.smarthome.core.thing.Bridge;
+import org.eclipse.smarthome.core.thing.ChannelUID;
+import org.eclipse.smarthome.core.thing.Thing;
+import org.eclipse.smarthome.core.thing.ThingStatus;
+import org.eclipse.smarthome.core.thing.ThingStatusDetail;
+import org.eclipse.smarthome.core.thing.ThingStatusInfo;
+import org.eclipse.smarthome.core.thing.binding.BaseThingHandler;
+import org.eclipse.smarthome.core.thing.binding.ThingHandler;
+import org.eclipse.smarthome.core.types.Command;
+import org.eclipse.smarthome.core.types.RefreshType;
+import org.openhab.binding.lutronmqtt.internal.LutronMQTTGroupConfiguration;
+import org.openhab.binding.lutronmqtt.model.LutronDevice;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link LutronMQTTGroupHandler} controls a set of devices as one, such as the lights of a room. The gateway has
+ * no command for several zones, so every command reaches it as one GoToLevel per member, published back to back with
+ * a shared fade.
+ *
+ * The level channel sets every member to the same level and shows the level of the brightest member; the scene
+ * channel takes each member to its configured scene level, or turns them all off.
+ *
+ * @author William Welliver - Initial contribution
+ */
+public class LutronMQTTGroupHandler extends BaseThingHandler implements DeviceStatusListener {
+    private static final int FULL_LEVEL = 65535;
+
+    private final Logger log = LoggerFactory.getLogger(LutronMQTTGroupHandler.class);
+
+    private final PublishedStateCache publishedStates = new PublishedStateCache();
+
+    private LutronMQTTHubHandler hubHandler;
+    private int[] memberIds = new int[0];
+    private int[] sceneLevels = new int[0];
+    private int fade;
+    private int delay;
+
+    public LutronMQTTGroupHandler(Thing thing) {
+        super(thing);
+    }
+
+    @Override
+    public void initialize() {
+        publishedStates.clear();
+        LutronMQTTGroupConfiguration config = getConfigAs(LutronMQTTGroupConfiguration.class);
+        try {
+            memberIds = parseList(config.members);
+            if (memberIds.length == 0) {
+                throw new IllegalArgumentException("The group has no members.");
+            }
+            if (config.sceneLevels == null || config.sceneLevels.trim().isEmpty()) {
+                sceneLevels = new int[memberIds.length];
+                Arrays.fill(sceneLevels, FULL_LEVEL);
+            } else {
+                sceneLevels = parseList(config.sceneLevels);
+                if (sceneLevels.length != memberIds.length) {
+                    throw new IllegalArgumentException("Expected " + memberIds.length + " scene levels, got "
+                            + sceneLevels.length + ".");
+                }
+                for (int i = 0; i < sceneLevels.length; i++) {
+                    sceneLevels[i] = LightStateConverter.toPercentLightState(new PercentType(sceneLevels[i]));
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_ERROR, e.getMessage());
+            return;
+        }
+        // a fade set on the level channel, like that of a single device, takes precedence over the group's.
+        int channelFade = PowerLevelDeviceHandler.getChannelSeconds(getThing(), CHANNEL_LIGHT_LEVEL, CONFIG_FADE);
+        fade = channelFade > 0 ? channelFade : Math.max(0, config.fade);
+        delay = PowerLevelDeviceHandler.getChannelSeconds(getThing(), CHANNEL_LIGHT_LEVEL, CONFIG_DELAY);
+
+        LutronMQTTHubHandler hub = getHubHandler();
+        if (hub == null) {
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.BRIDGE_OFFLINE);
+            return;
+        }
+        for (int objectId : memberIds) {
+            hub.registerDeviceStatusListener(objectId, this);
+        }
+        updateOnlineStatus();
+        updateLevel();
+    }
+
+    @Override
+    public void dispose() {
+        LutronMQTTHubHandler hub = hubHandler;
+        if (hub != null) {
+            hub.unregisterDeviceStatusListener(this);
+            hubHandler = null;
+        }
+    }
+
+    @Override
+    public void handleCommand(ChannelUID channelUID, Command command) {
+        String ch = channelUID.getId();
+        if (command instanceof RefreshType) {
+            if (CHANNEL_LIGHT_LEVEL.equals(ch)) {
+                updateLevel();
+            }
+            return;
+        }
+
+        int[] levels = null;
+        if (CHANNEL_LIGHT_LEVEL.equals(ch)) {
+            int level = -1;
+            if (command instanceof PercentType) {
+                level = LightStateConverter.toPercentLightState((PercentType) command);
+            } else if (command instanceof OnOffType) {
+                level = LightStateConverter.toOnOffLightState((OnOffType) command);
+            }
+            if (level >= 0) {
+                levels = new int[memberIds.length];
+                Arrays.fill(levels, level);
+            }
+        } else if (CHANNEL_GROUP_SCENE.equals(ch) && command instanceof OnOffType) {
+            levels = command == OnOffType.ON ? sceneLevels : new int[memberIds.length];
+        }
+
+        LutronMQTTHubHandler hub = getHubHandler();
+        if (levels == null || hub == null) {
+            log.warn("Got an unhandled command " + command + " for channel " + ch);
+            return;
+        }
+        hub.goToLevels(memberIds, levels, fade, delay);
+    }
+
+    @Override
+    public void channelLinked(ChannelUID channelUID) {
+        // a newly linked item needs the current state, even if it has been published before.
+        publishedStates.forget(channelUID.getId());
+        if (CHANNEL_LIGHT_LEVEL.equals(channelUID.getId())) {
+            updateLevel();
+        }
+    }
+
+    @Override
+    public void bridgeStatusChanged(ThingStatusInfo bridgeStatusInfo) {
+        updateOnlineStatus();
+    }
+
+    @Override
+    public void onDeviceFound(LutronDevice d) {
+        updateLevel();
+    }
+
+    @Override
+    public void onDeviceRemoved(LutronDevice d) {
+        updateLevel();
+    }
+
+    @Override
+    public void onDeviceStateChanged(LutronDevice d) {
+        updateLevel();
+    }
+
+    /**
+     * Shows the level of the brightest member that has reported one.
+     */
+    private synchronized void updateLevel() {
+        LutronMQTTHubHandler hub = getHubHandler();
+        if (hub == null) {
+            return;
+        }
+        int max = -1;
+        for (int objectId : memberIds) {
+            LutronDevice device = hub.getDeviceByObjectId(objectId);
+            if (device != null && device.getProperty(LUTRON_PROPERTY_LEVEL) != LutronDevice.PROPERTY_UNKNOWN) {
+                max = Math.max(max, LightStateConverter.getLevel(device));
+            }
+        }
+        if (max >= 0) {
+            PercentType state = LightStateConverter.toBrightnessPercentType(max);
+            if (publishedStates.changed(CHANNEL_LIGHT_LEVEL, state)) {
+                updateState(CHANNEL_LIGHT_LEVEL, state);
+            }
+        }
+    }
+
+    private void updateOnlineStatus() {
+        Bridge bridge = getBridge();
+        if (bridge == null || bridge.getStatus() != ThingStatus.ONLINE) {
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.BRIDGE_OFFLINE);
+        } else {
+            updateStatus(ThingStatus.ONLINE);
+        }
+    }
+
+    private static int[] parseList(String list) {
+        if (list == null || list.trim().isEmpty()) {
+            return new int[0];
+        }
+        String[] items = list.split(",");
+        int[] values = new int[items.length];
+        for (int i = 0; i < items.length; i++) {
+            try {
+                values[i] = Integer.parseInt(items[i].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Not a number: " + items[i].trim());
+            }
+            if (values[i] < 0) {
+                throw new IllegalArgumentException("Not a valid value: " + values[i]);
+            }
+        }
+        return values;
+    }
+
+    protected synchronized LutronMQTTHubHandler getHubHandler() {
+        if (this.hubHandler == null) {
+            Bridge bridge = getBridge();
+            if (bridge == null) {
+                return null;
+            }
+            ThingHandler handler = bridge.getHandler();
+            if (handler instanceof LutronMQTTHubHandler) {
+                this.hubHandler = (LutronMQTTHubHandler) handler;
+            } else {
+                return null;
+            }
+        }
+        return this.hubHandler;
+    }
+}
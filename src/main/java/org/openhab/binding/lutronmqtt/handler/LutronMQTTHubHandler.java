@@ -13,31 +13,52 @@
 package org.openhab.binding.lutronmqtt.handler;
 
 import static org.openhab.binding.lutronmqtt.LutronMQTTBindingConstants.CONFIG_TOKEN;
+import static org.openhab.binding.lutronmqtt.LutronMQTTBindingConstants.LUTRON_PROPERTY_LEVEL;
 import static org.openhab.binding.lutronmqtt.LutronMQTTBindingConstants.PROPERTY_URL;
 
-import java.io.UnsupportedEncodingException;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.file.Paths;
 import java.util.*;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntConsumer;
 
 import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.smarthome.config.core.ConfigConstants;
 import org.eclipse.smarthome.config.core.Configuration;
 import org.eclipse.smarthome.core.thing.*;
 import org.eclipse.smarthome.core.thing.binding.BaseBridgeHandler;
 import org.eclipse.smarthome.core.types.Command;
 import org.eclipse.smarthome.io.transport.mqtt.*;
-import org.eclipse.smarthome.io.transport.mqtt.reconnect.PeriodicReconnectStrategy;
+import org.openhab.binding.lutronmqtt.internal.CommandDebouncer;
+import org.openhab.binding.lutronmqtt.internal.CommandPublisher;
+import org.openhab.binding.lutronmqtt.internal.DeviceRegistry;
+import org.openhab.binding.lutronmqtt.internal.DeviceSnapshotStore;
+import org.openhab.binding.lutronmqtt.internal.DeviceStatusListenerRegistry;
+import org.openhab.binding.lutronmqtt.internal.InventoryPoller;
+import org.openhab.binding.lutronmqtt.internal.LutronCommandEncoder;
 import org.openhab.binding.lutronmqtt.internal.LutronMQTTConfiguration;
+import org.openhab.binding.lutronmqtt.internal.LutronMQTTMetrics;
+import org.openhab.binding.lutronmqtt.internal.LutronMessageDecoder;
+import org.openhab.binding.lutronmqtt.internal.LutronMessageDispatcher;
+import org.openhab.binding.lutronmqtt.internal.MqttConnectionPool;
+import org.openhab.binding.lutronmqtt.internal.PropertyUpdateCoalescer;
+import org.openhab.binding.lutronmqtt.internal.RemoteEventParser;
+import org.openhab.binding.lutronmqtt.internal.RemoteListenerIndex;
+import org.openhab.binding.lutronmqtt.internal.StartupPipeline;
+import org.openhab.binding.lutronmqtt.internal.TopicRouter;
+import org.openhab.binding.lutronmqtt.model.ListDevicesEvent;
 import org.openhab.binding.lutronmqtt.model.LutronDevice;
+import org.openhab.binding.lutronmqtt.model.LutronGatewayEvent;
+import org.openhab.binding.lutronmqtt.model.LutronStatusMessage;
+import org.openhab.binding.lutronmqtt.model.RuntimePropertyUpdateEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.gson.Gson;
-
-import jersey.repackaged.com.google.common.collect.ImmutableList;
 
 /**
  * The {@link LutronMQTTHubHandler} is responsible for handling commands, which are
@@ -48,21 +69,68 @@ import jersey.repackaged.com.google.common.collect.ImmutableList;
 public class LutronMQTTHubHandler extends BaseBridgeHandler implements MqttMessageSubscriber, MqttConnectionObserver {
     private final Logger logger = LoggerFactory.getLogger(LutronMQTTHubHandler.class);
 
-    private Collection<DeviceStatusListener> deviceStatusListeners = new HashSet<>();
+    // backlogs are per device, so these bound how far one device's messages may fall behind before the oldest are
+    // shed.
+    private static final int INBOUND_BACKLOG_PER_KEY = 16;
+    private static final int LISTENER_LANES = 4;
+    private static final int LISTENER_BACKLOG_PER_KEY = 16;
+    // every button press and release is delivered, so the remote lane keeps more of them waiting.
+    private static final int REMOTE_BACKLOG = 64;
+    // inbound keys for messages that are not about one device; where one is still waiting, a newer one replaces it.
+    private static final int KEY_STATUS = -1;
+    private static final int KEY_INVENTORY = -2;
+    private static final int KEY_OTHER_EVENTS = -3;
+    private static final String SNAPSHOT_FOLDER = "lutronmqtt";
+    private static final int SNAPSHOT_INTERVAL_SECONDS = 60;
+
+    private final DeviceStatusListenerRegistry deviceStatusListeners = new DeviceStatusListenerRegistry();
+    private final MqttConnectionPool connectionPool;
 
-    private List<LutronDevice> deviceList = Collections.EMPTY_LIST;
 
     @Nullable
     private LutronMQTTConfiguration config;
     private String token;
-    private MqttBrokerConnection mqttClient;
-    private Gson gson = new Gson();
-    private Map<Integer, LutronDevice> devicesByObjectId = new HashMap<>();
+    // read on the MQTT callback thread, which may report a state change as soon as the connection is started.
+    private volatile MqttBrokerConnection mqttClient;
+    private final LutronMessageDecoder decoder = new LutronMessageDecoder();
+    private final DeviceRegistry devices = new DeviceRegistry();
+    // inbound messages are decoded and applied in arrival order on a single thread, while listeners are
+    // notified on per-device lanes so that a slow handler only holds up devices sharing its lane.
+    // read on the MQTT callback thread
+    private volatile LutronMessageDispatcher inboundDispatcher;
+    private volatile LutronMessageDispatcher remoteDispatcher;
+    private volatile LutronMessageDispatcher listenerDispatcher;
+    private PropertyUpdateCoalescer coalescer;
+    private CommandDebouncer commandDebouncer;
+    private CommandPublisher publisher;
+    private LutronMQTTMetrics metrics = new LutronMQTTMetrics(this, false);
+    private boolean connectedBefore;
+    // set while the connection is known to be up, so that a CONNECTED state reported twice is only acted on once.
+    private final AtomicBoolean connectionUp = new AtomicBoolean();
     private ScheduledFuture<?> onlineTimeout;
-    private ScheduledFuture<?> allItemsJob;
+    private InventoryPoller inventoryPoller;
+    private StartupPipeline startup = new StartupPipeline("lutronmqtt");
+    private DeviceSnapshotStore snapshotStore;
+    private ScheduledFuture<?> snapshotJob;
+    // held while the snapshot is saved or deleted, so that a save in progress cannot bring back a deleted snapshot.
+    private final Object snapshotLock = new Object();
+    private volatile boolean snapshotDirty;
+    private volatile boolean refreshAllDevices;
+    // topics are namespaced by the configured prefix, so that several gateways can share one broker connection.
+    private String subscriptionTopic;
+    private String commandTopic;
+    private String subscribedTopic;
+    // built once the prefix is known and only read afterwards.
+    private volatile TopicRouter<Route> router = new TopicRouter<>();
+    private final RemoteListenerIndex remoteListeners = new RemoteListenerIndex();
 
     public LutronMQTTHubHandler(Bridge thing) {
+        this(thing, new MqttConnectionPool());
+    }
+
+    public LutronMQTTHubHandler(Bridge thing, MqttConnectionPool connectionPool) {
         super(thing);
+        this.connectionPool = connectionPool;
         logger.warn("LutronMQTTHubHandler create.");
     }
 
@@ -72,10 +140,74 @@ public class LutronMQTTHubHandler extends BaseBridgeHandler implements MqttMessa
         Configuration config = getThing().getConfiguration();
         Map<String, String> properties = getThing().getProperties();
         token = (String) config.get(CONFIG_TOKEN);
+        this.config = getConfigAs(LutronMQTTConfiguration.class);
+        String prefix = this.config.topicPrefix == null || this.config.topicPrefix.isEmpty() ? "lutron"
+                : this.config.topicPrefix;
+        subscriptionTopic = prefix + "/#";
+        commandTopic = prefix + "/commands";
+        // button presses are handled as they arrive rather than queued behind device updates, as a remote that
+        // responds late feels broken.
+        router = new TopicRouter<Route>()
+                .add(prefix + "/status", new Route(this::handleStatusPayload, payload -> KEY_STATUS, false))
+                .add(prefix + "/events", new Route(this::handleEventsPayload, this::eventKey, false))
+                // remotes have a lane of their own, so that a button press is not held up behind a device list.
+                .add(prefix + "/remote", new Route(this::handleRemotePayload, payload -> 0, true));
+        publisher = new CommandPublisher(scheduler, this.config.publishTimeout);
+        metrics.unregister();
+        metrics = new LutronMQTTMetrics(this, this.config.metricsEnabled);
+        metrics.register(getThing().getUID().toString());
+        coalescer = new PropertyUpdateCoalescer(scheduler, this.config.coalesceDelay, new IntConsumer() {
+            @Override
+            public void accept(int objectId) {
+                LutronDevice device = devices.get(objectId);
+                if (device != null) {
+                    informDeviceListeners(device);
+                }
+            }
+        });
+        commandDebouncer = new CommandDebouncer(scheduler, this.config.commandDebounce,
+                new CommandDebouncer.LevelSender() {
+                    @Override
+                    public void sendLevel(int objectId, int level, int fade, int delay) {
+                        sendGoToLevel(objectId, level, fade, delay);
+                    }
+                });
+
+        startup = new StartupPipeline("Lutron-MQTT bridge " + getThing().getUID().getId());
+        if (inventoryPoller != null) {
+            inventoryPoller.stop();
+        }
+        inventoryPoller = new InventoryPoller(scheduler, new Runnable() {
+            @Override
+            public void run() {
+                requestAllItems();
+            }
+        }, this.config.inventoryInterval, this.config.inventoryMaxInterval);
+
+        snapshotStore = new DeviceSnapshotStore(Paths.get(ConfigConstants.getUserDataFolder(), SNAPSHOT_FOLDER,
+                getThing().getUID().getId() + ".snapshot"));
+        if (devices.isEmpty()) {
+            restoreSnapshot();
+        }
+        if (snapshotJob == null) {
+            snapshotJob = scheduler.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    saveSnapshot();
+                }
+            }, SNAPSHOT_INTERVAL_SECONDS, SNAPSHOT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        }
 
         final String broker = properties.get(PROPERTY_URL);
 
-        String clientId = "openhab-lutron-mqtt-" + (System.currentTimeMillis() / 1000);
+        if (inboundDispatcher == null) {
+            String id = getThing().getUID().getId();
+            inboundDispatcher = new LutronMessageDispatcher("lutronmqtt-" + id + "-inbound", 1,
+                    INBOUND_BACKLOG_PER_KEY);
+            remoteDispatcher = new LutronMessageDispatcher("lutronmqtt-" + id + "-remote", 1, REMOTE_BACKLOG);
+            listenerDispatcher = new LutronMessageDispatcher("lutronmqtt-" + id + "-listeners", LISTENER_LANES,
+                    LISTENER_BACKLOG_PER_KEY);
+        }
 
         if (mqttClient == null || mqttClient.connectionState() == MqttConnectionState.DISCONNECTED) {
             logger.warn("Attempting to connect to MQTT Broker.");
@@ -88,20 +220,20 @@ public class LutronMQTTHubHandler extends BaseBridgeHandler implements MqttMessa
                 return;
             }
 
-            MqttBrokerConnection brokerConnection = new MqttBrokerConnection(brokerUri.getHost(), brokerUri.getPort(),
-                    false, clientId);
-            brokerConnection.addConnectionObserver(this);
-            brokerConnection.setReconnectStrategy(new PeriodicReconnectStrategy());
+            releaseConnection();
             updateStatus(ThingStatus.OFFLINE, "Preparing to connect to " + brokerUri.toASCIIString());
 
-            Boolean bool = null;
-            try {
-                mqttClient = brokerConnection;
-                bool = brokerConnection.start().get();
-            } catch (InterruptedException | ExecutionException e) {
-                logger.warn("MQTT startup failed.", e);
+            // the rest of startup follows from connectionStateChanged, so there is nothing to wait for here.
+            startup.start();
+            MqttBrokerConnection brokerConnection = connectionPool.acquire(brokerUri);
+            // published before the connection can report CONNECTED, so that setupSubscriptions always finds it.
+            mqttClient = brokerConnection;
+            connectionPool.connect(brokerConnection, this);
+            if (brokerConnection.connectionState() == MqttConnectionState.CONNECTED) {
+                // shared with another bridge that has already connected, so no state change may be coming; if one
+                // arrives anyway, connectionStateChanged only acts on the first.
+                connectionStateChanged(MqttConnectionState.CONNECTED, null);
             }
-            logger.warn("MQTT startup returned " + bool);
         }
 
         // logger.error("Unable to connect to MQTT broker at " + broker, e);
@@ -117,70 +249,162 @@ public class LutronMQTTHubHandler extends BaseBridgeHandler implements MqttMessa
         logger.info("Disposing of handler " + this);
         super.dispose();
 
-        mqttClient.stop();
         cancelJobs();
+        releaseConnection();
+        metrics.unregister();
 
-        mqttClient = null;
+        if (snapshotJob != null) {
+            snapshotJob.cancel(false);
+            snapshotJob = null;
+        }
+        saveSnapshot();
+
+        if (inboundDispatcher != null) {
+            inboundDispatcher.shutdown();
+            remoteDispatcher.shutdown();
+            listenerDispatcher.shutdown();
+            inboundDispatcher = null;
+            remoteDispatcher = null;
+            listenerDispatcher = null;
+        }
     }
 
-    private void cancelJobs() {
-        if (allItemsJob != null && !allItemsJob.isCancelled())
-            allItemsJob.cancel(true);
-        if (onlineTimeout != null && !onlineTimeout.isCancelled())
-            onlineTimeout.cancel(true);
+    @Override
+    public void handleRemoval() {
+        // a bridge added later with the same id must not start from this one's devices.
+        if (snapshotJob != null) {
+            snapshotJob.cancel(false);
+            snapshotJob = null;
+        }
+        deleteSnapshot();
+        super.handleRemoval();
     }
 
-    private void setupSubscriptions() {
+    /**
+     * Loads the devices and last reported properties saved by a previous run, so that things can come up with their
+     * last known state before the gateway has been asked for it. Restored devices are refreshed once the first
+     * inventory arrives.
+     */
+    private void restoreSnapshot() {
+        long start = System.nanoTime();
+        List<LutronDevice> restored;
         try {
-            mqttClient.unsubscribeAll().get();
-        } catch (InterruptedException | ExecutionException e) {
-            logger.warn("An error occurred while unsubscribing.", e);
+            restored = snapshotStore.load();
+        } catch (IOException e) {
+            logger.warn("Unable to read device snapshot " + snapshotStore.getFile() + ": " + e.getMessage());
+            return;
+        }
+        if (restored.isEmpty()) {
+            return;
         }
-        logger.info("Subscribing.");
-        for (String topic : new String[] { "lutron/status", "lutron/events", "lutron/remote" }) {
+        devices.replace(restored);
+        refreshAllDevices = true;
+        logger.info("Restored " + restored.size() + " devices from " + snapshotStore.getFile() + " in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+    }
+
+    private void saveSnapshot() {
+        synchronized (snapshotLock) {
+            DeviceSnapshotStore store = snapshotStore;
+            if (!snapshotDirty || store == null) {
+                return;
+            }
+            // cleared first, so that changes made while saving are picked up next time.
+            snapshotDirty = false;
             try {
-                logger.info("subscribing to " + topic);
-                if (!mqttClient.subscribe(topic, this).get()) {
-                    logger.error("subscribe failed.");
-                    goOffline(ThingStatusDetail.COMMUNICATION_ERROR, "Unable to subscribe to events");
-                }
-            } catch (InterruptedException | ExecutionException e) {
-                logger.warn("An error occurred while subscribing.", e);
+                List<LutronDevice> saved = devices.getSnapshot().getDevices();
+                store.save(saved);
+                logger.debug("Saved " + saved.size() + " devices to " + store.getFile());
+            } catch (IOException e) {
+                snapshotDirty = true;
+                logger.warn("Unable to save device snapshot " + store.getFile() + ": " + e.getMessage());
             }
         }
-        logger.info("Subscribed.");
-        cancelJobs();
+    }
 
-        logger.info("Scheduling item request.");
-        allItemsJob = scheduler.schedule(new Runnable() {
-            @Override
-            public void run() {
-                requestAllItems();
+    /**
+     * Deletes the snapshot of a bridge that is being removed, and stops it from being saved again when the handler
+     * is disposed.
+     */
+    private void deleteSnapshot() {
+        synchronized (snapshotLock) {
+            DeviceSnapshotStore store = snapshotStore;
+            snapshotStore = null;
+            if (store == null) {
+                return;
             }
-        }, 10, TimeUnit.SECONDS);
+            try {
+                store.delete();
+                logger.debug("Deleted device snapshot " + store.getFile());
+            } catch (IOException e) {
+                logger.warn("Unable to delete device snapshot " + store.getFile() + ": " + e.getMessage());
+            }
+        }
     }
 
-    private void requestAllItems() {
-        logger.warn("Requesting all items");
-        byte[] b = new byte[0];
-        try {
-            b = ("{\"cmd\": \"GetDevices\", \"args\": {}}").getBytes("UTF-8");
-        } catch (UnsupportedEncodingException e) {
-            logger.warn("Unable to encode JSON.", e);
+    /**
+     * Drops this bridge's subscriptions and hands its connection back to the pool, which closes it if no other
+     * bridge uses it.
+     */
+    private void releaseConnection() {
+        MqttBrokerConnection client = mqttClient;
+        if (client == null) {
+            return;
         }
-        try {
-            Boolean res = mqttClient.publish("lutron/commands", (b), 0, false).get();
-            logger.warn("Publish returned " + res);
-        } catch (Exception e) {
-            logger.warn("Exception while publishing.", e);
+        mqttClient = null;
+        connectionUp.set(false);
+        if (subscribedTopic != null) {
+            client.unsubscribe(subscribedTopic, this);
+            subscribedTopic = null;
         }
+        connectionPool.release(client, this);
+    }
 
-        allItemsJob = scheduler.schedule(new Runnable() {
-            @Override
-            public void run() {
-                requestAllItems();
-            }
-        }, 5, TimeUnit.MINUTES);
+    private void cancelJobs() {
+        if (inventoryPoller != null)
+            inventoryPoller.stop();
+        if (onlineTimeout != null && !onlineTimeout.isCancelled())
+            onlineTimeout.cancel(true);
+    }
+
+    /**
+     * Subscribes to everything below the bridge's topic prefix and asks for the device list as soon as the broker
+     * has acknowledged the subscription. Messages are sorted out by {@link #router}, so topics the bridge learns to
+     * handle later need no further subscriptions. A subscription this bridge still holds, as after an online timeout on
+     * a shared connection, is dropped first, so that the connection never carries this bridge twice.
+     */
+    private void setupSubscriptions() {
+        final MqttBrokerConnection client = mqttClient;
+        if (client == null) {
+            logger.debug("No MQTT connection to subscribe on; the bridge has been disposed.");
+            return;
+        }
+        final long start = System.nanoTime();
+        final String topic = subscriptionTopic;
+        final String previous = subscribedTopic;
+        subscribedTopic = topic;
+        CompletableFuture<Boolean> unsubscribed = previous == null ? CompletableFuture.completedFuture(true)
+                : client.unsubscribe(previous, this);
+        // a failed unsubscribe leaves nothing to undo, so the subscription is attempted either way.
+        unsubscribed.handle((done, error) -> done).thenCompose(done -> client.subscribe(topic, this))
+                .whenComplete((subscribed, error) -> {
+                    if (error != null || !Boolean.TRUE.equals(subscribed)) {
+                        logger.error("subscribe failed.", error);
+                        goOffline(ThingStatusDetail.COMMUNICATION_ERROR, "Unable to subscribe to events");
+                        return;
+                    }
+                    logger.debug("Subscribed to " + topic + " in "
+                            + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms.");
+                    startup.reached(StartupPipeline.Stage.SUBSCRIBED);
+                    // a reconnect brings inventory polling back to its shortest interval.
+                    inventoryPoller.start(0);
+                });
+    }
+
+    private void requestAllItems() {
+        logger.debug("Requesting all items");
+        publisher.publish(mqttClient, commandTopic, LutronCommandEncoder.get().getDevices().toByteArray());
+        startup.reached(StartupPipeline.Stage.INVENTORY_REQUESTED);
     }
 
     @Override
@@ -195,120 +419,451 @@ public class LutronMQTTHubHandler extends BaseBridgeHandler implements MqttMessa
         updateStatus(ThingStatus.OFFLINE, detail, reason);
         if (onlineTimeout != null)
             onlineTimeout.cancel(true);
-        if (allItemsJob != null)
-            onlineTimeout.cancel(true);
+        if (inventoryPoller != null)
+            inventoryPoller.stop();
     }
 
+    /**
+     * @return the devices currently known to this bridge; the collection is not copied and never changes.
+     */
     public Collection<LutronDevice> getDevices() {
-        return ImmutableList.copyOf(deviceList);
+        return devices.getSnapshot().getDevices();
     }
 
+    /**
+     * Registers a listener that is informed about every device on this bridge.
+     */
     public void registerDeviceStatusListener(DeviceStatusListener lutronDeviceDiscoveryService) {
-        deviceStatusListeners.add(lutronDeviceDiscoveryService);
+        deviceStatusListeners.register(lutronDeviceDiscoveryService);
+    }
+
+    /**
+     * Registers a listener that is informed about the device with the given objectId only.
+     */
+    public void registerDeviceStatusListener(int objectId, DeviceStatusListener listener) {
+        deviceStatusListeners.register(objectId, listener);
     }
 
     public void unregisterDeviceStatusListener(DeviceStatusListener lutronDeviceDiscoveryService) {
-        deviceStatusListeners.remove(lutronDeviceDiscoveryService);
+        deviceStatusListeners.unregister(lutronDeviceDiscoveryService);
+    }
+
+    /**
+     * Registers the listener for button events from the remote with the given serial number, replacing any other.
+     */
+    public void registerRemoteEventListener(int serialNumber, RemoteEventListener listener) {
+        remoteListeners.register(serialNumber, listener);
+    }
+
+    public void unregisterRemoteEventListener(int serialNumber, RemoteEventListener listener) {
+        remoteListeners.unregister(serialNumber, listener);
     }
 
     @Override
-    public void processMessage(String s, byte[] mqttMessage) {
-        logger.warn("messageArrived: " + s + " " + mqttMessage.toString());
-        switch (s) {
-            case "lutron/status":
-                handleStatusMessage(mqttMessage);
-                break;
-            case "lutron/remote":
-                handleRemoteEvent(mqttMessage);
-                break;
-            case "lutron/events":
-                handleGatewayEvent(mqttMessage);
-                break;
-        }
-    }
-
-    private void handleGatewayEvent(byte[] mqttMessage) {
-        // logger.info("gateway event: " + new String(mqttMessage.getPayload()));
-        Map<String, Object> msg = gson.fromJson(new String(mqttMessage), HashMap.class);
-
-        if (msg.containsKey("cmd")) {
-            String key = (String) msg.get("cmd");
-            Object arg = msg.get("args");
-            switch (key) {
-                case "ListDevices":
-                    int i = 0;
-                    logger.warn("ListDevices Response: " + arg);
-                    List<LutronDevice> devices = new ArrayList<>();
-                    for (Map<String, Object> objectMap : (List<Map<String, Object>>) arg) {
-                        getThing().getThings();
-                        final LutronDevice device = new LutronDevice(objectMap);
-                        logger.info("Device: " + device);
-                        devices.add(device);
-                        if (devicesByObjectId.containsKey(device.getObjectId())) {
-                            // TODO copy properties to new device
-                        }
-                        devicesByObjectId.put(device.getObjectId(), device);
-                        scheduler.schedule(new Runnable() {
-                            @Override
-                            public void run() {
-                                requestUpdateForDevice(device.getObjectId());
-                            }
-                        }, i++ % 3, TimeUnit.SECONDS);
-                    }
+    public void processMessage(final String s, final byte[] mqttMessage) {
+        // called on the MQTT client's callback thread, which must not be held up by decoding or by handlers, so
+        // every message is handed to a lane.
+        metrics.messageReceived(s);
+        // the wildcard subscription also brings back our own commands, which are dropped here.
+        final Route route = router.route(s);
+        if (route == null) {
+            return;
+        }
+        LutronMessageDispatcher dispatcher = route.remote ? remoteDispatcher : inboundDispatcher;
+        if (dispatcher == null) {
+            return;
+        }
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                handleMessage(s, route.handler, mqttMessage);
+            }
+        };
+        // neither waits: a device's backlog sheds its oldest update when full, and a newer status or device list
+        // replaces one not yet handled.
+        int key = route.key.of(mqttMessage);
+        if (key < 0) {
+            dispatcher.dispatchLatest(key, task);
+        } else {
+            dispatcher.dispatch(key, task);
+        }
+    }
 
-                    this.deviceList = devices;
+    /**
+     * Sorts lutron/events payloads by the device they are about, so that a busy device cannot push out the updates
+     * of the others.
+     */
+    private int eventKey(byte[] payload) {
+        if (decoder.isListDevices(payload)) {
+            return KEY_INVENTORY;
+        }
+        int objectId = decoder.findObjectId(payload);
+        return objectId < 0 ? KEY_OTHER_EVENTS : objectId;
+    }
 
-                    break;
-                case "RuntimePropertyUpdate":
-                    int objectId = ((Number) (((Map) arg).get("ObjectId"))).intValue();
-                    LutronDevice device = getDeviceByObjectId(objectId);
-                    if (device == null) {
-                        logger.warn("Unable to find LutronDevice with objectId=" + objectId);
-                    }
-                    List<List<Object>> l = (List<List<Object>>) (((Map) arg).get("Properties"));
-                    for (List property : l) {
-                        int pnum = ((Number) (property.get(0))).intValue();
-                        int pval = ((Number) (property.get(1))).intValue();
-                        device.putProperty(pnum, pval);
-                    }
-                    informDeviceListeners(device);
+    private void handleMessage(String s, MessageHandler handler, byte[] mqttMessage) {
+        if (logger.isTraceEnabled()) {
+            logger.trace("messageArrived: " + s + " " + mqttMessage.length + " bytes");
+        }
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        try {
+            handler.handle(mqttMessage, start);
+        } catch (IOException e) {
+            logger.warn("Unable to decode message received on " + s, e);
+        }
+    }
+
+    private void handleStatusPayload(byte[] payload, long start) throws IOException {
+        LutronStatusMessage status = decoder.decodeStatus(payload);
+        recordDecodeTime(start);
+        handleStatusMessage(status);
+    }
 
-                    break;
-                default:
-                    logger.warn("Received unknown message type " + key + " with args " + arg);
-                    break;
+    private void handleRemotePayload(byte[] payload, long start) throws IOException {
+        RemoteEventParser parser = RemoteEventParser.get();
+        if (!parser.parse(payload)) {
+            logger.debug("Ignoring incomplete remote event.");
+            return;
+        }
+        recordDecodeTime(start);
+        RemoteEventListener listener = remoteListeners.get(parser.getSerial());
+        if (listener == null) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("No thing for remote {}; ignoring {} {}.", Integer.toHexString(parser.getSerial()),
+                        parser.getButton(), parser.getAction());
             }
+            return;
+        }
+        listener.onRemoteEvent(parser.getButton(), parser.getAction());
+    }
+
+    private void handleEventsPayload(byte[] payload, long start) throws IOException {
+        if (decoder.isListDevices(payload) && !inventoryPoller.inventoryReceived(payload)) {
+            logger.debug("Device list unchanged; skipping it.");
+            // the states are those already known, so there is nothing to query.
+            startup.reached(StartupPipeline.Stage.INVENTORY_RECEIVED);
+            startup.reached(StartupPipeline.Stage.STATES_QUERIED);
+            return;
+        }
+        LutronGatewayEvent event = decoder.decodeGatewayEvent(payload);
+        recordDecodeTime(start);
+        if (event != null) {
+            handleGatewayEvent(event);
+        }
+    }
+
+    private void recordDecodeTime(long start) {
+        if (metrics.isEnabled()) {
+            metrics.recordDecode(System.nanoTime() - start);
+        }
+    }
+
+    private void handleGatewayEvent(LutronGatewayEvent event) {
+        if (event instanceof ListDevicesEvent) {
+            reconcileDevices(((ListDevicesEvent) event).getDevices());
+        } else if (event instanceof RuntimePropertyUpdateEvent) {
+            RuntimePropertyUpdateEvent update = (RuntimePropertyUpdateEvent) event;
+            LutronDevice device = getDeviceByObjectId(update.getObjectId());
+            if (device == null) {
+                logger.warn("Unable to find LutronDevice with objectId=" + update.getObjectId()
+                        + "; requesting the device list.");
+                inventoryPoller.pollSoon();
+                return;
+            }
+            update.applyTo(device);
+            snapshotDirty = true;
+            coalescer.updated(device.getObjectId());
+        } else {
+            logger.warn("Received unknown message type " + event.getCommand());
+        }
+    }
+
+    /**
+     * Brings the known devices in line with an inventory reported by the gateway. Devices already known are updated
+     * in place, so that their reported properties survive; listeners hear about devices that were added or removed,
+     * and only devices whose level has not been reported are queried.
+     */
+    private void reconcileDevices(List<LutronDevice> devices) {
+        logger.debug("ListDevices Response: " + devices.size() + " devices");
+        startup.reached(StartupPipeline.Stage.INVENTORY_RECEIVED);
+        DeviceRegistry.Snapshot previous = this.devices.getSnapshot();
+        if (devices.isEmpty() && previous.size() > 0) {
+            logger.warn("Ignoring an empty device list; keeping the " + previous.size() + " known devices.");
+            return;
+        }
+
+        // levels restored from a snapshot, or known from before a reconnect, may be out of date, in which case every
+        // device is queried.
+        boolean refreshAll = refreshAllDevices;
+        refreshAllDevices = false;
+
+        List<LutronDevice> current = new ArrayList<>(devices.size());
+        List<LutronDevice> found = new ArrayList<>();
+        Map<Integer, LutronDevice> reported = new HashMap<>(devices.size() * 4 / 3 + 1);
+        int[] queryIds = new int[devices.size()];
+        int queries = 0;
+        int changed = 0;
+        for (LutronDevice device : devices) {
+            logger.trace("Device: {}", device);
+            if (reported.containsKey(device.getObjectId())) {
+                continue;
+            }
+            LutronDevice known = previous.get(device.getObjectId());
+            if (known == null) {
+                found.add(device);
+                known = device;
+            } else if (known.updateFrom(device)) {
+                logger.debug("Device " + known.getObjectId() + " changed: " + known);
+                changed++;
+            }
+            reported.put(known.getObjectId(), known);
+            current.add(known);
+            if (refreshAll || !known.hasProperty(LUTRON_PROPERTY_LEVEL)) {
+                queryIds[queries++] = known.getObjectId();
+            }
+        }
+
+        List<LutronDevice> removed = new ArrayList<>();
+        for (LutronDevice known : previous.getDevices()) {
+            if (!reported.containsKey(known.getObjectId())) {
+                removed.add(known);
+            }
+        }
+
+        if (!found.isEmpty() || !removed.isEmpty() || changed > 0) {
+            // the new snapshot is in place before anyone hears about the changes.
+            DeviceRegistry.Snapshot snapshot = this.devices.replace(current);
+            snapshotDirty = true;
+            for (LutronDevice device : found) {
+                informDeviceFound(device);
+            }
+            for (LutronDevice device : removed) {
+                informDeviceRemoved(device);
+            }
+            logger.debug("Device list version " + snapshot.getVersion() + ": " + found.size() + " added, " + changed
+                    + " changed, " + removed.size() + " removed");
+        }
+        if (queries > 0) {
+            requestUpdateForDevices(Arrays.copyOf(queryIds, queries));
+        } else {
+            startup.reached(StartupPipeline.Stage.STATES_QUERIED);
         }
     }
 
     protected void requestUpdateForDevice(int objectId) {
-        byte[] b = ("{\"cmd\":\"RuntimePropertyQuery\", \"args\":{\"Params\":[[" + objectId + ",15,[1]]]}}").getBytes();
-        mqttClient.publish("lutron/commands", b);
+        publishPropertyQuery(new int[] { objectId }, 0, 1);
+    }
+
+    /**
+     * Requests the current state of the given devices, packing up to refreshBatchSize objectIds into each
+     * RuntimePropertyQuery and sending the batches refreshBatchInterval milliseconds apart.
+     */
+    protected void requestUpdateForDevices(final int[] objectIds) {
+        int batchSize = Math.max(1, config.refreshBatchSize);
+        long delay = 0;
+        for (int start = 0; start < objectIds.length; start += batchSize) {
+            final int from = start;
+            final int to = Math.min(start + batchSize, objectIds.length);
+            if (delay == 0) {
+                publishRefreshBatch(objectIds, from, to);
+            } else {
+                scheduler.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        publishRefreshBatch(objectIds, from, to);
+                    }
+                }, delay, TimeUnit.MILLISECONDS);
+            }
+            delay += config.refreshBatchInterval;
+        }
     }
 
-    protected void informDeviceListeners(LutronDevice device) {
-        logger.info("informDeviceListeners " + device);
-        for (DeviceStatusListener s : deviceStatusListeners) {
-            s.onDeviceStateChanged(device);
+    private void publishPropertyQuery(int[] objectIds, int from, int to) {
+        MqttBrokerConnection client = mqttClient;
+        if (client == null) {
+            return;
         }
+        publisher.publish(client, commandTopic,
+                LutronCommandEncoder.get().runtimePropertyQuery(objectIds, from, to).toByteArray());
     }
 
-    public LutronDevice getDeviceByObjectId(int objectId) {
-        logger.warn("looking for device with objectId =" + objectId);
-        return devicesByObjectId.get(objectId);
+    private void publishRefreshBatch(int[] objectIds, int from, int to) {
+        publishPropertyQuery(objectIds, from, to);
+        if (to == objectIds.length) {
+            // the last batch of a refresh; ignored unless the bridge is starting up
+            startup.reached(StartupPipeline.Stage.STATES_QUERIED);
+        }
+    }
+
+    protected void informDeviceListeners(final LutronDevice device) {
+        LutronMessageDispatcher dispatcher = listenerDispatcher;
+        if (dispatcher == null) {
+            return;
+        }
+        // listeners read the device's current state, so one pending notification per device is enough.
+        dispatcher.dispatchLatest(device.getObjectId(), new Runnable() {
+            @Override
+            public void run() {
+                logger.debug("informDeviceListeners {}", device);
+                if (metrics.isEnabled()) {
+                    long start = System.nanoTime();
+                    deviceStatusListeners.notifyDeviceStateChanged(device);
+                    metrics.recordDispatch(System.nanoTime() - start);
+                } else {
+                    deviceStatusListeners.notifyDeviceStateChanged(device);
+                }
+            }
+        });
+    }
+
+    private void informDeviceFound(final LutronDevice device) {
+        LutronMessageDispatcher dispatcher = listenerDispatcher;
+        if (dispatcher == null) {
+            return;
+        }
+        dispatcher.dispatch(device.getObjectId(), new Runnable() {
+            @Override
+            public void run() {
+                deviceStatusListeners.notifyDeviceFound(device);
+            }
+        });
+    }
+
+    private void informDeviceRemoved(final LutronDevice device) {
+        LutronMessageDispatcher dispatcher = listenerDispatcher;
+        if (dispatcher == null) {
+            return;
+        }
+        dispatcher.dispatch(device.getObjectId(), new Runnable() {
+            @Override
+            public void run() {
+                deviceStatusListeners.notifyDeviceRemoved(device);
+            }
+        });
+    }
+
+    /**
+     * @return the number of inbound messages waiting to be decoded and applied.
+     */
+    public int getInboundQueueDepth() {
+        LutronMessageDispatcher dispatcher = inboundDispatcher;
+        return dispatcher == null ? 0 : dispatcher.getQueueDepth();
+    }
+
+    /**
+     * @return how long the most recent inbound message waited before it was processed, in milliseconds.
+     */
+    public long getInboundLagMillis() {
+        LutronMessageDispatcher dispatcher = inboundDispatcher;
+        return dispatcher == null ? 0 : dispatcher.getLagMillis();
+    }
+
+    /**
+     * @return the number of inbound messages, remote events and device notifications shed because their lane fell
+     *         too far behind.
+     */
+    public long getShedMessageCount() {
+        LutronMessageDispatcher inbound = inboundDispatcher;
+        LutronMessageDispatcher remotes = remoteDispatcher;
+        LutronMessageDispatcher listeners = listenerDispatcher;
+        return (inbound == null ? 0 : inbound.getShedCount()) + (remotes == null ? 0 : remotes.getShedCount())
+                + (listeners == null ? 0 : listeners.getShedCount());
+    }
+
+    /**
+     * @return the number of inbound messages and device notifications replaced by a newer one before they were
+     *         handled.
+     */
+    public long getCoalescedMessageCount() {
+        LutronMessageDispatcher inbound = inboundDispatcher;
+        LutronMessageDispatcher listeners = listenerDispatcher;
+        return (inbound == null ? 0 : inbound.getCoalescedCount())
+                + (listeners == null ? 0 : listeners.getCoalescedCount());
+    }
+
+    /**
+     * @return the number of devices with property updates being held back before listeners are told.
+     */
+    public int getPendingPropertyUpdateCount() {
+        PropertyUpdateCoalescer c = coalescer;
+        return c == null ? 0 : c.getPendingCount();
+    }
+
+    /**
+     * @return the current device list polling interval, in seconds, or 0 if the bridge is not polling.
+     */
+    public long getInventoryIntervalSeconds() {
+        InventoryPoller poller = inventoryPoller;
+        return poller == null ? 0 : poller.getIntervalSeconds();
+    }
+
+    /**
+     * @return the number of device lists skipped because they had not changed.
+     */
+    public long getSkippedInventoryCount() {
+        InventoryPoller poller = inventoryPoller;
+        return poller == null ? 0 : poller.getSkippedCount();
+    }
+
+    /**
+     * @return the startup stage the bridge has reached; STATES_QUERIED once it is fully up.
+     */
+    public StartupPipeline.Stage getStartupStage() {
+        return startup.getStage();
     }
 
-    private void handleRemoteEvent(byte[] mqttMessage) {
-        logger.info("remote event: " + new String(mqttMessage));
+    /**
+     * @return how long the most recent startup or reconnect took, in milliseconds, or -1 if none has completed.
+     */
+    public long getLastStartupMillis() {
+        return startup.getLastDurationMillis();
+    }
+
+    /**
+     * @return the number of devices known to this bridge.
+     */
+    public int getDeviceCount() {
+        return devices.size();
+    }
+
+    /**
+     * @return the number of device status listener registrations on this bridge.
+     */
+    public int getListenerCount() {
+        return deviceStatusListeners.size();
+    }
+
+    /**
+     * @return the number of device notifications waiting to be delivered to listeners.
+     */
+    public int getListenerQueueDepth() {
+        LutronMessageDispatcher dispatcher = listenerDispatcher;
+        return dispatcher == null ? 0 : dispatcher.getQueueDepth();
+    }
 
-        Map<String, Object> msg = gson.fromJson(new String(mqttMessage), HashMap.class);
-        // {"serial" : "C726CA", "action": "down", "button": "select"}
+    /**
+     * @return how long the most recent device notification waited before it was delivered, in milliseconds.
+     */
+    public long getListenerLagMillis() {
+        LutronMessageDispatcher dispatcher = listenerDispatcher;
+        return dispatcher == null ? 0 : dispatcher.getLagMillis();
     }
 
-    private void handleStatusMessage(byte[] mqttMessage) {
-        logger.info("status message: " + new String(mqttMessage));
-        Map<String, Object> msg = gson.fromJson(new String(mqttMessage), HashMap.class);
-        if (msg.containsKey("state") && "running".equals(msg.get("state"))) {
+    /**
+     * @return a consistent, versioned view of the devices currently known to this bridge.
+     */
+    public DeviceRegistry.Snapshot getDeviceSnapshot() {
+        return devices.getSnapshot();
+    }
+
+    public LutronDevice getDeviceByObjectId(int objectId) {
+        logger.trace("looking for device with objectId = {}", objectId);
+        return devices.get(objectId);
+    }
+
+    private void handleStatusMessage(LutronStatusMessage status) {
+        logger.debug("status message: {}", status);
+        if (status.isRunning()) {
             if (onlineTimeout != null)
                 onlineTimeout.cancel(true);
             goOnline();
@@ -321,56 +876,208 @@ public class LutronMQTTHubHandler extends BaseBridgeHandler implements MqttMessa
         }
     }
 
+    /**
+     * Levels may have changed while the gateway was out of reach, so the next device list is processed even if it is
+     * unchanged, and every device on it is queried.
+     */
+    private void refreshOnNextInventory() {
+        refreshAllDevices = true;
+        if (inventoryPoller != null) {
+            inventoryPoller.invalidate();
+        }
+    }
+
     protected void onlineTimeoutOccurred() {
         goOffline(ThingStatusDetail.BRIDGE_OFFLINE, "Too long between status announcements.");
-        try {
-            mqttClient.stop().get();
-            Thread.sleep(5000);
+        refreshOnNextInventory();
+        final MqttBrokerConnection client = mqttClient;
+        if (client == null) {
             initialize();
-        } catch (Exception e) {
-            logger.warn("An error occurred while restarting the service.", e);
+            return;
         }
+        if (connectionPool.getUsers(client) > 1) {
+            // other bridges on this connection are still hearing from their gateways, so the connection itself is
+            // fine; subscribe again and ask this gateway for its devices rather than disconnecting everyone.
+            startup.reached(StartupPipeline.Stage.CONNECTED);
+            setupSubscriptions();
+            return;
+        }
+        // reconnecting the same connection keeps its client id, so the broker sees the same session come back.
+        client.stop().whenComplete((stopped, error) -> {
+            if (error != null) {
+                logger.debug("An error occurred while disconnecting.", error);
+            }
+            if (mqttClient != client) {
+                // disposed, or replaced by another connection, in the meantime
+                return;
+            }
+            client.start().whenComplete((started, startError) -> {
+                if (startError != null || !Boolean.TRUE.equals(started)) {
+                    logger.warn("An error occurred while reconnecting.", startError);
+                }
+            });
+        });
     }
 
-    public void setDesiredState(Map<String, Object> lightState) {
-        byte[] bytes = new byte[0];
-        try {
-            bytes = (gson.toJson(lightState)).getBytes("UTF-8");
-        } catch (UnsupportedEncodingException e) {
-            logger.warn("Error encoding JSON.", e);
+    /**
+     * Requests that a device go to the given level. Rapid successive requests for the same device, such as those
+     * sent while a slider is dragged, are thinned out so that the gateway only receives the newest level.
+     *
+     * @param level
+     *            the level, between 0 and 65535
+     */
+    public void goToLevel(int objectId, int level) {
+        goToLevel(objectId, level, 0, 0);
+    }
+
+    /**
+     * Requests that a device go to the given level, with the change carried out by the gateway over the given fade
+     * time after the given delay, so that a slow transition takes one command.
+     *
+     * @param level
+     *            the level, between 0 and 65535
+     * @param fade
+     *            the fade time, in seconds
+     * @param delay
+     *            the time, in seconds, before the fade starts
+     */
+    public void goToLevel(int objectId, int level, int fade, int delay) {
+        commandDebouncer.submit(objectId, level, fade, delay);
+    }
+
+    /**
+     * Takes each device to its own level with a shared fade and delay. The gateway has no command that sets several
+     * zones at once, so one GoToLevel is published per device. They are published back to back, without waiting for
+     * one another and bypassing the debouncing applied by {@link #goToLevel(int, int)}, so that the devices start
+     * their fades as close together as the gateway allows; levels still waiting to be sent to these devices are
+     * dropped, as they would undo the group command.
+     *
+     * @param levels
+     *            the level for each device, between 0 and 65535
+     * @param fade
+     *            the fade time, in seconds
+     * @param delay
+     *            the time, in seconds, before the fade starts
+     */
+    public void goToLevels(int[] objectIds, int[] levels, int fade, int delay) {
+        if (objectIds.length != levels.length) {
+            throw new IllegalArgumentException("Expected " + objectIds.length + " levels, got " + levels.length);
         }
-        // MqttMessage message = new MqttMessage(bytes);
-        Boolean res = null;
-        try {
-            res = mqttClient.publish("lutron/commands", bytes, 0, false).get();
-            if (res)
-                logger.info("Sent message.");
-            else
-                logger.warn("Failed to send message: " + new String(bytes));
-        } catch (InterruptedException | ExecutionException e) {
-            logger.warn("Error sending message.", e);
+        for (int objectId : objectIds) {
+            commandDebouncer.cancel(objectId);
+        }
+        for (int i = 0; i < objectIds.length; i++) {
+            sendGoToLevel(objectIds[i], levels[i], fade, delay);
         }
     }
 
+    /**
+     * @return whether handlers should show a commanded level before the gateway has confirmed it.
+     */
+    public boolean isOptimisticUpdates() {
+        return config != null && config.optimisticUpdates;
+    }
+
+    /**
+     * @return how long, in milliseconds, a commanded level is shown before it is reverted if the gateway has not
+     *         confirmed it.
+     */
+    public long getOptimisticTimeout() {
+        return config == null ? 0 : config.optimisticTimeout;
+    }
+
+    /**
+     * @return the number of level commands requested by handlers.
+     */
+    public long getLevelCommandsRequested() {
+        CommandDebouncer debouncer = commandDebouncer;
+        return debouncer == null ? 0 : debouncer.getSubmittedCount();
+    }
+
+    /**
+     * @return the number of level commands sent to the gateway.
+     */
+    public long getLevelCommandsSent() {
+        CommandDebouncer debouncer = commandDebouncer;
+        return debouncer == null ? 0 : debouncer.getSentCount();
+    }
+
+    /**
+     * Sends a GoToLevel command for the device straight to the gateway, bypassing the debouncing applied by
+     * {@link #goToLevel(int, int, int, int)}.
+     */
+    public void sendGoToLevel(int objectId, int level, int fade, int delay) {
+        LutronCommandEncoder encoder = LutronCommandEncoder.get().goToLevel(objectId, level, fade, delay);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Sending {}", encoder);
+        }
+        publisher.publish(mqttClient, commandTopic, encoder.toByteArray());
+    }
+
+    /**
+     * @return the publisher used for commands sent to the gateway, which keeps count of outcomes and latency.
+     */
+    public CommandPublisher getCommandPublisher() {
+        return publisher;
+    }
+
     @Override
     public void connectionStateChanged(MqttConnectionState mqttConnectionState, @Nullable Throwable throwable) {
         if (mqttConnectionState == MqttConnectionState.CONNECTED) {
+            if (!connectionUp.compareAndSet(false, true)) {
+                logger.debug("Already handled the CONNECTED state.");
+                return;
+            }
             logger.info("MQTT connection state changed to CONNECTED.");
+            if (connectedBefore) {
+                metrics.reconnected();
+            }
+            connectedBefore = true;
+            refreshOnNextInventory();
+            startup.reached(StartupPipeline.Stage.CONNECTED);
             goOnline();
             logger.info("Online");
-            scheduler.schedule(new Runnable() {
-                @Override
-                public void run() {
-                    setupSubscriptions();
-                    logger.info("Subscribed.");
-                }
-            }, 1, TimeUnit.SECONDS);
+            setupSubscriptions();
         } else if (mqttConnectionState == MqttConnectionState.CONNECTING) {
+            connectionUp.set(false);
             goOffline(ThingStatusDetail.BRIDGE_OFFLINE, "MQTT Reconnecting");
         } else if (mqttConnectionState == MqttConnectionState.DISCONNECTED) {
+            connectionUp.set(false);
             goOffline(ThingStatusDetail.BRIDGE_OFFLINE, "MQTT Disconnected");
             logger.warn("Lost connection to MQTT server.");
             cancelJobs();
         }
     }
+
+    private static class Route {
+        final MessageHandler handler;
+        final InboundKey key;
+        // handled on the remote lane instead of the inbound lane
+        final boolean remote;
+
+        Route(MessageHandler handler, InboundKey key, boolean remote) {
+            this.handler = handler;
+            this.key = key;
+            this.remote = remote;
+        }
+    }
+
+    private interface InboundKey {
+        /**
+         * @return the key the payload waits under on its lane: an object id, or a negative key for a
+         *         message a newer one of the same kind makes redundant.
+         */
+        int of(byte[] payload);
+    }
+
+    /**
+     * Handles the payload of a message routed to it by topic.
+     */
+    private interface MessageHandler {
+        /**
+         * @param start
+         *            when handling started, for decode timing; 0 if metrics are disabled
+         */
+        void handle(byte[] payload, long start) throws IOException;
+    }
 }
@@ -7,19 +7,53 @@
  */
 package org.openhab.binding.lutronmqtt.handler;
 
+import static org.openhab.binding.lutronmqtt.LutronMQTTBindingConstants.*;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.smarthome.core.thing.Bridge;
 import org.eclipse.smarthome.core.thing.ChannelUID;
+import org.eclipse.smarthome.core.thing.CommonTriggerEvents;
 import org.eclipse.smarthome.core.thing.Thing;
+import org.eclipse.smarthome.core.thing.ThingStatus;
+import org.eclipse.smarthome.core.thing.ThingStatusDetail;
+import org.eclipse.smarthome.core.thing.ThingStatusInfo;
 import org.eclipse.smarthome.core.thing.binding.BaseThingHandler;
+import org.eclipse.smarthome.core.thing.binding.ThingHandler;
 import org.eclipse.smarthome.core.types.Command;
 import org.openhab.binding.lutronmqtt.model.LutronDevice;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
- * The {@link LutronMQTTRemoteHandler} is responsible for handling commands, which are
- * sent to one of the channels.
+ * The {@link LutronMQTTRemoteHandler} turns the button actions of a Pico remote into trigger channel events. Each
+ * button has a channel that is triggered PRESSED and RELEASED, and the button channel carries every event as
+ * BUTTON_ACTION, such as SELECT_DOWN, including those from buttons without a channel of their own.
+ *
+ * Events are delivered by the hub on its remote lane, and everything needed to trigger a channel is
+ * prepared when the handler is initialized.
  *
  * @author William Welliver - Initial contribution
  */
-public class LutronMQTTRemoteHandler extends BaseThingHandler implements DeviceStatusListener {
+public class LutronMQTTRemoteHandler extends BaseThingHandler implements DeviceStatusListener, RemoteEventListener {
+    private static final String ACTION_DOWN = "down";
+    private static final String ACTION_UP = "up";
+
+    private final Logger log = LoggerFactory.getLogger(LutronMQTTRemoteHandler.class);
+
+    // replaced rather than modified, as events may be read on the hub's remote lane while the handler initializes.
+    private volatile Map<String, ChannelUID> buttonChannels = Collections.emptyMap();
+    private final Map<String, Map<String, String>> eventNames = new ConcurrentHashMap<>();
+    private volatile ChannelUID eventChannel;
+
+    private LutronMQTTHubHandler hubHandler;
+    private int objectId;
+    // the serial number our listener is registered for, or -1
+    private int serialNumber = -1;
 
     public LutronMQTTRemoteHandler(Thing thing) {
         super(thing);
@@ -27,17 +61,156 @@ public class LutronMQTTRemoteHandler extends BaseThingHandler implements DeviceS
 
     @Override
     public void handleCommand(ChannelUID channelUID, Command command) {
+        // trigger channels take no commands.
+    }
+
+    @Override
+    public void initialize() {
+        Map<String, ChannelUID> channels = new HashMap<>();
+        for (String button : CHANNEL_REMOTE_BUTTONS) {
+            channels.put(button, new ChannelUID(getThing().getUID(), button));
+        }
+        buttonChannels = channels;
+        eventChannel = new ChannelUID(getThing().getUID(), CHANNEL_REMOTE_EVENT);
+
+        String property = getThing().getProperties().get(PROPERTY_OBJECT_ID);
+        try {
+            objectId = Integer.parseInt(property);
+        } catch (NumberFormatException e) {
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_ERROR, "Invalid objectId " + property);
+            return;
+        }
+
+        LutronMQTTHubHandler hub = getHubHandler();
+        if (hub == null) {
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.BRIDGE_OFFLINE);
+            return;
+        }
+        hub.registerDeviceStatusListener(objectId, this);
+        LutronDevice device = hub.getDeviceByObjectId(objectId);
+        if (device != null) {
+            listenTo(device);
+        }
+        updateOnlineStatus();
+    }
+
+    @Override
+    public void dispose() {
+        LutronMQTTHubHandler hub = hubHandler;
+        if (hub != null) {
+            hub.unregisterDeviceStatusListener(this);
+            stopListening();
+            hubHandler = null;
+        }
+        objectId = 0;
+    }
+
+    @Override
+    public void bridgeStatusChanged(ThingStatusInfo bridgeStatusInfo) {
+        updateOnlineStatus();
+    }
+
+    @Override
+    public void onRemoteEvent(String button, String action) {
+        ChannelUID channel = buttonChannels.get(button);
+        if (channel != null) {
+            if (ACTION_DOWN.equals(action)) {
+                triggerChannel(channel, CommonTriggerEvents.PRESSED);
+            } else if (ACTION_UP.equals(action)) {
+                triggerChannel(channel, CommonTriggerEvents.RELEASED);
+            }
+        }
+        triggerChannel(eventChannel, eventName(button, action));
     }
 
     @Override
     public void onDeviceFound(LutronDevice d) {
+        if (d.getObjectId() == objectId) {
+            listenTo(d);
+            updateOnlineStatus();
+        }
     }
 
     @Override
     public void onDeviceRemoved(LutronDevice d) {
+        if (d.getObjectId() == objectId) {
+            stopListening();
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.NONE, "The remote is no longer known to the gateway.");
+        }
     }
 
     @Override
-    public void onDeviceStateChanged(LutronDevice light) {
+    public void onDeviceStateChanged(LutronDevice d) {
+        // the inventory may have brought a different serial number for the same device.
+        if (d.getObjectId() == objectId && d.getSerialNumber() != serialNumber) {
+            listenTo(d);
+            updateOnlineStatus();
+        }
+    }
+
+    private synchronized void listenTo(LutronDevice device) {
+        LutronMQTTHubHandler hub = getHubHandler();
+        int serial = device.getSerialNumber();
+        if (hub == null || serial == serialNumber) {
+            return;
+        }
+        stopListening();
+        if (serial > 0) {
+            hub.registerRemoteEventListener(serial, this);
+            serialNumber = serial;
+            log.debug("Listening to remote {} (objectId {})", Integer.toHexString(serial), objectId);
+        }
+    }
+
+    private synchronized void stopListening() {
+        LutronMQTTHubHandler hub = hubHandler;
+        if (hub != null && serialNumber >= 0) {
+            hub.unregisterRemoteEventListener(serialNumber, this);
+        }
+        serialNumber = -1;
+    }
+
+    private void updateOnlineStatus() {
+        Bridge bridge = getBridge();
+        if (bridge == null || bridge.getStatus() != ThingStatus.ONLINE) {
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.BRIDGE_OFFLINE);
+        } else if (serialNumber < 0) {
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.NONE, "Waiting for the gateway to report the remote.");
+        } else {
+            updateStatus(ThingStatus.ONLINE);
+        }
+    }
+
+    /**
+     * @return BUTTON_ACTION, made once for each combination seen.
+     */
+    private String eventName(String button, String action) {
+        Map<String, String> byAction = eventNames.get(button);
+        if (byAction == null) {
+            byAction = new ConcurrentHashMap<>();
+            eventNames.put(button, byAction);
+        }
+        String name = byAction.get(action);
+        if (name == null) {
+            name = (button + "_" + action).toUpperCase(Locale.ROOT);
+            byAction.put(action, name);
+        }
+        return name;
+    }
+
+    protected synchronized LutronMQTTHubHandler getHubHandler() {
+        if (this.hubHandler == null) {
+            Bridge bridge = getBridge();
+            if (bridge == null) {
+                return null;
+            }
+            ThingHandler handler = bridge.getHandler();
+            if (handler instanceof LutronMQTTHubHandler) {
+                this.hubHandler = (LutronMQTTHubHandler) handler;
+            } else {
+                return null;
+            }
+        }
+        return this.hubHandler;
     }
 }
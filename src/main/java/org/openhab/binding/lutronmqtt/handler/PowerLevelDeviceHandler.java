@@ -9,10 +9,12 @@ package org.openhab.binding.lutronmqtt.handler;
 
 import static org.openhab.binding.lutronmqtt.LutronMQTTBindingConstants.*;
 
-import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.smarthome.core.library.types.*;
 import org.eclipse.smarthome.core.thing.Bridge;
+import org.eclipse.smarthome.core.thing.Channel;
 import org.eclipse.smarthome.core.thing.ChannelUID;
 import org.eclipse.smarthome.core.thing.Thing;
 import org.eclipse.smarthome.core.thing.ThingStatus;
@@ -21,12 +23,11 @@ import org.eclipse.smarthome.core.thing.ThingStatusInfo;
 import org.eclipse.smarthome.core.thing.binding.BaseThingHandler;
 import org.eclipse.smarthome.core.thing.binding.ThingHandler;
 import org.eclipse.smarthome.core.types.Command;
+import org.eclipse.smarthome.core.types.State;
 import org.openhab.binding.lutronmqtt.model.LutronDevice;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.gson.Gson;
-
 /**
  * The {@link PowerLevelDeviceHandler} is responsible for handling commands, which are
  * sent to one of the channels.
@@ -49,6 +50,18 @@ public class PowerLevelDeviceHandler extends BaseThingHandler implements DeviceS
     protected final String powerLevelChannelName;
     // protected final String powerSwitchChannelName;
 
+    // the gateway carries out level changes over this fade, in seconds, after this delay, in seconds.
+    protected int fade;
+    protected int delay;
+
+    // the state last published on each channel, so that unchanged states are not published again.
+    private final PublishedStateCache publishedStates = new PublishedStateCache();
+
+    // in optimistic mode, the commanded level shown on the channel until the gateway confirms it.
+    private final Object pendingLock = new Object();
+    private PercentType pendingState;
+    private ScheduledFuture<?> pendingTimeout;
+
     public PowerLevelDeviceHandler(Thing thing, String powerLevelChannel, String powerSwitchChannel) {
         super(thing);
         this.powerLevelChannelName = powerLevelChannel;
@@ -57,11 +70,9 @@ public class PowerLevelDeviceHandler extends BaseThingHandler implements DeviceS
 
     @Override
     public void handleCommand(ChannelUID channelUID, Command command) {
-        Map<String, Object> lightState = null;
+        int level = -1;
         String ch = channelUID.getId();
-        log.warn("Got a command for channel id=" + ch + ", command=" + command);
-
-        log.info("command= " + command + ", last device reading=" + getDevice().getProperty(LUTRON_PROPERTY_LEVEL));
+        log.debug("Got a command for channel id=" + ch + ", command=" + command);
 
         if (log.isTraceEnabled()) {
             log.trace(
@@ -69,18 +80,21 @@ public class PowerLevelDeviceHandler extends BaseThingHandler implements DeviceS
         }
         if (powerLevelChannelName.equals(ch)) {
             if (command instanceof PercentType) {
-                lightState = LightStateConverter.toLightState((PercentType) command, getDevice());
+                level = LightStateConverter.toPercentLightState((PercentType) command);
             } else if (command instanceof OnOffType) {
-                lightState = LightStateConverter.toLightState((OnOffType) command, getDevice());
+                level = LightStateConverter.toOnOffLightState((OnOffType) command);
             } else if (command instanceof IncreaseDecreaseType) {
-                lightState = LightStateConverter.toLightState((IncreaseDecreaseType) command, getDevice());
+                level = LightStateConverter.toAdjustedBrightness((IncreaseDecreaseType) command,
+                        LightStateConverter.getLevel(getDevice()));
             } else if (command instanceof UpDownType) {
-                lightState = LightStateConverter.toLightState((UpDownType) command, getDevice());
+                level = LightStateConverter.toAdjustedBrightness((UpDownType) command,
+                        LightStateConverter.getLevel(getDevice()));
             } else if (command == StopMoveType.STOP) {
                 setAsIs = true;
                 log.warn("STOPPING");
+                forgetPublishedState(ch);
                 scheduleUpdateForDevice(objectId);
-                // lightState = LightStateConverter.toLightState((Sto) command, getDevice());
+                return;
             }
         }
 
@@ -91,28 +105,93 @@ public class PowerLevelDeviceHandler extends BaseThingHandler implements DeviceS
          * }
          * }
          */
-        Gson gson = new Gson();
-        log.info("converted " + command + " to " + gson.toJson(lightState));
-
-        if (lightState != null) {
+        if (level >= 0) {
             if (log.isTraceEnabled()) {
-                // Gson gson = new Gson();
-                log.trace("converted " + command + " to " + gson.toJson(lightState));
+                log.trace("converted " + command + " to level " + level);
             }
-            updateDeviceState(lightState);
+            updateDeviceLevel(level);
         } else {
             log.warn("Got a command for an unhandled channel: " + ch);
         }
     }
 
-    protected void updateDeviceState(Map<String, Object> lightState) {
-        log.warn("updateDeviceState: " + lightState);
-        getHubHandler().setDesiredState(lightState);
+    protected void updateDeviceLevel(int level) {
+        log.debug("updateDeviceLevel: " + level);
+        LutronMQTTHubHandler hub = getHubHandler();
+        hub.goToLevel(objectId, level, fade, delay);
+        if (hub.isOptimisticUpdates()) {
+            // the gateway only reports the level once it has got there.
+            showPendingLevel(level, hub.getOptimisticTimeout() + TimeUnit.SECONDS.toMillis(fade + delay));
+        }
+    }
+
+    /**
+     * Publishes a commanded level straight away and holds it until the gateway reports it, or until the timeout
+     * expires, at which point the level last reported by the gateway is published again.
+     */
+    private void showPendingLevel(int level, long timeoutMillis) {
+        PercentType state = LightStateConverter.toBrightnessPercentType(level);
+        synchronized (pendingLock) {
+            if (pendingTimeout != null) {
+                pendingTimeout.cancel(false);
+            }
+            pendingState = state;
+            pendingTimeout = scheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    pendingLevelTimedOut(state);
+                }
+            }, timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        updateStateIfChanged(powerLevelChannelName, state);
+    }
+
+    private void pendingLevelTimedOut(PercentType state) {
+        synchronized (pendingLock) {
+            if (pendingState != state) {
+                // confirmed, or replaced by a newer command
+                return;
+            }
+            pendingState = null;
+            pendingTimeout = null;
+        }
+        log.debug("Level " + state + " was not confirmed for device " + objectId + "; reverting to its last report.");
+        LutronMQTTHubHandler hub = getHubHandler();
+        LutronDevice d = hub == null ? null : hub.getDeviceByObjectId(objectId);
+        if (d != null && d.hasProperty(LUTRON_PROPERTY_LEVEL)) {
+            updateStateIfChanged(powerLevelChannelName, LightStateConverter.toBrightnessPercentType(d));
+        } else {
+            forgetPublishedState(powerLevelChannelName);
+        }
+    }
+
+    /**
+     * @return true if a reported state should be held back because a commanded level is still pending.
+     */
+    private boolean holdForPendingLevel(PercentType reported) {
+        synchronized (pendingLock) {
+            if (pendingState == null) {
+                return false;
+            }
+            if (!pendingState.equals(reported)) {
+                // most likely a report sent before the gateway acted on the command.
+                return true;
+            }
+            pendingState = null;
+            if (pendingTimeout != null) {
+                pendingTimeout.cancel(false);
+                pendingTimeout = null;
+            }
+            return false;
+        }
     }
 
     @Override
     public void initialize() {
         log.debug("Initializing power level device handler.");
+        publishedStates.clear();
+        fade = getChannelSeconds(getThing(), powerLevelChannelName, CONFIG_FADE);
+        delay = getChannelSeconds(getThing(), powerLevelChannelName, CONFIG_DELAY);
         initializeThing((getBridge() == null) ? null : getBridge().getStatus());
     }
 
@@ -124,9 +203,12 @@ public class PowerLevelDeviceHandler extends BaseThingHandler implements DeviceS
         if (_objectId != null) {
             this.objectId = _objectId;
             if (getHubHandler() != null) {
+                getHubHandler().registerDeviceStatusListener(objectId, this);
+                // the device may already be known from the bridge's snapshot, in which case its last known level
+                // is published straight away.
+                LutronDevice device = getHubHandler().getDeviceByObjectId(objectId);
                 if (bridgeStatus == ThingStatus.ONLINE) {
                     getHubHandler().requestUpdateForDevice(objectId);
-                    LutronDevice device = getHubHandler().getDeviceByObjectId(objectId);
                     if (device == null) {
                         updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.BRIDGE_OFFLINE);
                         return;
@@ -139,6 +221,9 @@ public class PowerLevelDeviceHandler extends BaseThingHandler implements DeviceS
                 } else {
                     updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.BRIDGE_OFFLINE);
                 }
+                if (device != null) {
+                    onDeviceStateChanged(device);
+                }
             } else {
                 updateStatus(ThingStatus.OFFLINE);
             }
@@ -150,6 +235,13 @@ public class PowerLevelDeviceHandler extends BaseThingHandler implements DeviceS
     @Override
     public void dispose() {
         log.debug("Handler disposed. Unregistering listener.");
+        synchronized (pendingLock) {
+            if (pendingTimeout != null) {
+                pendingTimeout.cancel(false);
+                pendingTimeout = null;
+            }
+            pendingState = null;
+        }
         if (objectId != 0) { // technically 0 is a valid device id but it appears to be reserved for the hub
             LutronMQTTHubHandler hubHandler = getHubHandler();
             if (hubHandler != null) {
@@ -160,6 +252,18 @@ public class PowerLevelDeviceHandler extends BaseThingHandler implements DeviceS
         }
     }
 
+    /**
+     * @return a whole number of seconds from the configuration of a channel, or 0 if it is not set.
+     */
+    static int getChannelSeconds(Thing thing, String channelId, String key) {
+        Channel channel = thing.getChannel(channelId);
+        if (channel == null) {
+            return 0;
+        }
+        Object value = channel.getConfiguration().get(key);
+        return value instanceof Number ? Math.max(0, ((Number) value).intValue()) : 0;
+    }
+
     protected synchronized LutronMQTTHubHandler getHubHandler() {
         if (this.hubHandler == null) {
             Bridge bridge = getBridge();
@@ -169,7 +273,6 @@ public class PowerLevelDeviceHandler extends BaseThingHandler implements DeviceS
             ThingHandler handler = bridge.getHandler();
             if (handler instanceof LutronMQTTHubHandler) {
                 this.hubHandler = (LutronMQTTHubHandler) handler;
-                this.hubHandler.registerDeviceStatusListener(this);
             } else {
                 return null;
             }
@@ -211,6 +314,8 @@ public class PowerLevelDeviceHandler extends BaseThingHandler implements DeviceS
 
     @Override
     public void channelLinked(ChannelUID channelUID) {
+        // a newly linked item needs the current state, even if it has been published before.
+        forgetPublishedState(channelUID.getId());
         if (this.getBridge().getStatus() == ThingStatus.ONLINE) {
             // TODO really only need 1 for each device, no matter the channelse.
             scheduleUpdateForDevice(objectId);
@@ -236,8 +341,8 @@ public class PowerLevelDeviceHandler extends BaseThingHandler implements DeviceS
 
     @Override
     public void onDeviceStateChanged(LutronDevice d) {
-        log.trace("onDeviceStateChanged my id=" + objectId + ", update is for " + d.getObjectId() + ", name="
-                + d.getName());
+        // the hub only routes updates for our objectId here, but an update may still be in flight after we
+        // have been re-initialized for a different device.
         if (d.getObjectId() != objectId) {
             return;
         }
@@ -247,32 +352,62 @@ public class PowerLevelDeviceHandler extends BaseThingHandler implements DeviceS
             setAsIs = false;
         }
 
-        log.debug("Go device status change for " + this.getThing().getLabel());
-
-        if (d.hasUpdatedProperties()) {
-            log.info("Received notice of pending state change.");
+        if (log.isDebugEnabled()) {
+            log.debug("Go device status change for " + this.getThing().getLabel());
         }
 
-        if (false && device != null
-                && d.getProperty(LUTRON_PROPERTY_LEVEL) == (device.getProperty(LUTRON_PROPERTY_LEVEL))) {
-            log.info("Lutron Device: " + d.getName() + " Received State Changed but no difference");
+        if (!d.hasProperty(LUTRON_PROPERTY_LEVEL)) {
+            log.debug("No level reported yet for " + d.getName());
             return;
         }
 
-        device = d;
+        if (d.hasUpdatedProperties()) {
+            log.debug("Received notice of pending state change.");
+        }
 
-        log.info("Lutron Device: " + d.getName() + " State Changed: " + d.getProperty(LUTRON_PROPERTY_LEVEL));
+        device = d;
 
-        // TODO we should keep the previous state so that we don't send unnecessary updates.
+        if (log.isDebugEnabled()) {
+            log.debug("Lutron Device: " + d.getName() + " State Changed: " + d.getProperty(LUTRON_PROPERTY_LEVEL));
+        }
 
         PercentType percentType = LightStateConverter.toBrightnessPercentType(d);
 
-        log.info("Lutron: " + d.getName() + " Light Level: " + percentType.intValue());
-        updateState(powerLevelChannelName, percentType);
+        if (log.isDebugEnabled()) {
+            log.debug("Lutron: " + d.getName() + " Light Level: " + percentType.intValue());
+        }
+        if (holdForPendingLevel(percentType)) {
+            log.debug("Holding back " + percentType + " while a commanded level is pending.");
+            return;
+        }
+        updateStateIfChanged(powerLevelChannelName, percentType);
+    }
+
+    /**
+     * Publishes a state on a channel unless it is the state last published there.
+     *
+     * @return true if the state was published.
+     */
+    protected boolean updateStateIfChanged(String channelId, State state) {
+        if (!publishedStates.changed(channelId, state)) {
+            if (log.isTraceEnabled()) {
+                log.trace("Not publishing unchanged state " + state + " on " + channelId);
+            }
+            return false;
+        }
+        updateState(channelId, state);
+        return true;
+    }
+
+    /**
+     * Makes the next state for a channel be published, whether or not it has changed.
+     */
+    protected void forgetPublishedState(String channelId) {
+        publishedStates.forget(channelId);
     }
 
     protected Integer getCurrentLevel(LutronDevice light) {
-        int brightness = light.getProperty(LUTRON_PROPERTY_LEVEL);
+        int brightness = LightStateConverter.getLevel(light);
 
         return brightness;
     }
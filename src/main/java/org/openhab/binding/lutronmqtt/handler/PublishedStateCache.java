@@ -0,0 +1,48 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.handler;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.smarthome.core.types.State;
+
+/**
+ * The {@link PublishedStateCache} remembers the state last published on each channel of a thing, so that handlers
+ * only publish states that have changed.
+ *
+ * @author William Welliver - Initial contribution
+ */
+class PublishedStateCache {
+    private final Map<String, State> published = new ConcurrentHashMap<>();
+
+    /**
+     * Records a state about to be published on a channel.
+     *
+     * @return false if it is the state last published there, and need not be published again.
+     */
+    boolean changed(String channelId, State state) {
+        return !state.equals(published.put(channelId, state));
+    }
+
+    /**
+     * Makes the next state for a channel count as changed.
+     */
+    void forget(String channelId) {
+        published.remove(channelId);
+    }
+
+    void clear() {
+        published.clear();
+    }
+}
@@ -0,0 +1,31 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.handler;
+
+/**
+ * The {@link RemoteEventListener} is informed of the button actions of one remote. It is called on the bridge's
+ * remote lane, a single thread shared by every remote of the bridge, in the order the events arrived, so it must not
+ * block.
+ *
+ * @author William Welliver - Initial contribution
+ */
+public interface RemoteEventListener {
+
+    /**
+     * @param button
+     *            the button, such as "select"
+     * @param action
+     *            what happened to it, such as "down"
+     */
+    public void onRemoteEvent(String button, String action);
+}
@@ -0,0 +1,155 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.internal;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@link CommandDebouncer} limits how often level commands are sent to any one device. The first command for
+ * a device is sent straight away and opens a window; commands arriving during the window replace each other, and
+ * when the window closes the newest one is sent and a new window opens. The final level of a burst, such as a
+ * slider being dragged, is therefore always sent, at most one window after it was requested.
+ *
+ * @author William Welliver - Initial contribution
+ */
+public class CommandDebouncer {
+
+    /**
+     * Sends a level command to the gateway.
+     */
+    public interface LevelSender {
+        void sendLevel(int objectId, int level, int fade, int delay);
+    }
+
+    private final ScheduledExecutorService scheduler;
+    private final long windowMillis;
+    private final LevelSender sender;
+    private final ConcurrentMap<Integer, Slot> slots = new ConcurrentHashMap<>();
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+
+    /**
+     * @param windowMillis
+     *            minimum time between two commands sent to the same device; 0 or less sends every command
+     */
+    public CommandDebouncer(ScheduledExecutorService scheduler, long windowMillis, LevelSender sender) {
+        this.scheduler = scheduler;
+        this.windowMillis = windowMillis;
+        this.sender = sender;
+    }
+
+    /**
+     * Requests that the device be set to the given level. The fade and delay travel with the level, so a level that
+     * replaces another also replaces its fade and delay.
+     */
+    public void submit(int objectId, int level, int fade, int delay) {
+        submitted.incrementAndGet();
+        if (windowMillis <= 0) {
+            send(objectId, level, fade, delay);
+            return;
+        }
+
+        Slot slot = slots.computeIfAbsent(objectId, Slot::new);
+        synchronized (slot) {
+            if (slot.windowOpen) {
+                slot.pendingLevel = level;
+                slot.pendingFade = fade;
+                slot.pendingDelay = delay;
+                slot.hasPending = true;
+                return;
+            }
+            slot.windowOpen = true;
+            scheduleClose(slot);
+        }
+        send(objectId, level, fade, delay);
+    }
+
+    /**
+     * Drops a level still waiting to be sent to the device, for when it has been superseded by a command sent
+     * another way.
+     */
+    public void cancel(int objectId) {
+        Slot slot = slots.get(objectId);
+        if (slot == null) {
+            return;
+        }
+        synchronized (slot) {
+            slot.hasPending = false;
+        }
+    }
+
+    /**
+     * @return the number of commands requested.
+     */
+    public long getSubmittedCount() {
+        return submitted.get();
+    }
+
+    /**
+     * @return the number of commands actually sent; the difference to {@link #getSubmittedCount()} is the number
+     *         of commands that were superseded by a newer one.
+     */
+    public long getSentCount() {
+        return sent.get();
+    }
+
+    private void scheduleClose(final Slot slot) {
+        scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                closeWindow(slot);
+            }
+        }, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void closeWindow(Slot slot) {
+        int level;
+        int fade;
+        int delay;
+        synchronized (slot) {
+            if (!slot.hasPending) {
+                slot.windowOpen = false;
+                return;
+            }
+            level = slot.pendingLevel;
+            fade = slot.pendingFade;
+            delay = slot.pendingDelay;
+            slot.hasPending = false;
+            scheduleClose(slot);
+        }
+        send(slot.objectId, level, fade, delay);
+    }
+
+    private void send(int objectId, int level, int fade, int delay) {
+        sent.incrementAndGet();
+        sender.sendLevel(objectId, level, fade, delay);
+    }
+
+    private static class Slot {
+        final int objectId;
+        boolean windowOpen;
+        boolean hasPending;
+        int pendingLevel;
+        int pendingFade;
+        int pendingDelay;
+
+        Slot(int objectId) {
+            this.objectId = objectId;
+        }
+    }
+}
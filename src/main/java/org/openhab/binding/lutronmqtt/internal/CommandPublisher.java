@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.internal;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.smarthome.io.transport.mqtt.MqttBrokerConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link CommandPublisher} publishes commands to the gateway without waiting for the broker. Each publish
+ * returns at once; its outcome and latency are recorded when the broker acknowledges it, and a publish that has
+ * not been acknowledged within the timeout is reported as failed.
+ *
+ * @author William Welliver - Initial contribution
+ */
+public class CommandPublisher {
+    private final Logger logger = LoggerFactory.getLogger(CommandPublisher.class);
+
+    private final ScheduledExecutorService scheduler;
+    private final long timeoutMillis;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private volatile long lastLatencyNanos;
+
+    /**
+     * @param timeoutMillis
+     *            how long to wait for the broker to acknowledge a publish before reporting it as failed
+     */
+    public CommandPublisher(ScheduledExecutorService scheduler, long timeoutMillis) {
+        this.scheduler = scheduler;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Publishes a payload with QoS 0.
+     *
+     * @return a future completed with true once the broker has accepted the message, with false if it was refused,
+     *         or exceptionally if publishing failed or timed out.
+     */
+    public CompletableFuture<Boolean> publish(@Nullable MqttBrokerConnection client, final String topic,
+            final byte[] payload) {
+        final CompletableFuture<Boolean> outcome = new CompletableFuture<>();
+        if (client == null) {
+            failed.incrementAndGet();
+            outcome.complete(false);
+            return outcome;
+        }
+
+        final long start = System.nanoTime();
+        final ScheduledFuture<?> timeout = scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                if (outcome.completeExceptionally(
+                        new TimeoutException("No acknowledgement within " + timeoutMillis + " ms"))) {
+                    timedOut.incrementAndGet();
+                }
+            }
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+
+        try {
+            client.publish(topic, payload, 0, false).whenComplete((result, error) -> {
+                if (error != null) {
+                    outcome.completeExceptionally(error);
+                } else {
+                    outcome.complete(result);
+                }
+            });
+        } catch (RuntimeException e) {
+            outcome.completeExceptionally(e);
+        }
+
+        outcome.whenComplete((result, error) -> {
+            timeout.cancel(false);
+            long latency = System.nanoTime() - start;
+            if (error != null || !Boolean.TRUE.equals(result)) {
+                failed.incrementAndGet();
+                logger.warn("Failed to publish to {}: {} ({})", topic, new String(payload, StandardCharsets.UTF_8),
+                        error == null ? "refused by broker" : error.getMessage());
+                return;
+            }
+            published.incrementAndGet();
+            totalLatencyNanos.addAndGet(latency);
+            lastLatencyNanos = latency;
+            if (logger.isTraceEnabled()) {
+                logger.trace("Published to {} in {} us", topic, TimeUnit.NANOSECONDS.toMicros(latency));
+            }
+        });
+        return outcome;
+    }
+
+    /**
+     * @return the number of publishes acknowledged by the broker.
+     */
+    public long getPublishedCount() {
+        return published.get();
+    }
+
+    /**
+     * @return the number of publishes that were refused, failed or timed out.
+     */
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * @return the number of publishes that timed out; these are included in {@link #getFailedCount()}.
+     */
+    public long getTimedOutCount() {
+        return timedOut.get();
+    }
+
+    /**
+     * @return the mean time from publish to acknowledgement, in microseconds.
+     */
+    public long getAverageLatencyMicros() {
+        long count = published.get();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalLatencyNanos.get() / count);
+    }
+
+    /**
+     * @return the time from publish to acknowledgement of the most recent successful publish, in microseconds.
+     */
+    public long getLastLatencyMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(lastLatencyNanos);
+    }
+}
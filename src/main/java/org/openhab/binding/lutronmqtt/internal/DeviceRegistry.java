@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.binding.lutronmqtt.model.LutronDevice;
+
+/**
+ * The {@link DeviceRegistry} holds the devices known to a bridge as an immutable, versioned {@link Snapshot}.
+ *
+ * Reads go to the current snapshot without locking or copying, and every reader of one snapshot sees the same set
+ * of devices. Changes to the set of devices replace the snapshot in one step and bump its version; property updates
+ * are made to the device objects themselves and do not create a new snapshot.
+ *
+ * @author William Welliver - Initial contribution
+ */
+public class DeviceRegistry {
+    private volatile Snapshot snapshot = new Snapshot(0, Collections.<LutronDevice> emptyList(),
+            Collections.<Integer, LutronDevice> emptyMap());
+
+    /**
+     * @return the current devices; the snapshot never changes, so it may be kept and read at leisure.
+     */
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public @Nullable LutronDevice get(int objectId) {
+        return snapshot.get(objectId);
+    }
+
+    public int size() {
+        return snapshot.size();
+    }
+
+    public boolean isEmpty() {
+        return snapshot.size() == 0;
+    }
+
+    /**
+     * Replaces the known devices. Should a list name an objectId twice, the first device wins.
+     *
+     * @return the new snapshot
+     */
+    public synchronized Snapshot replace(Collection<LutronDevice> devices) {
+        Map<Integer, LutronDevice> byObjectId = new HashMap<>(devices.size() * 4 / 3 + 1);
+        List<LutronDevice> list = new ArrayList<>(devices.size());
+        for (LutronDevice device : devices) {
+            if (byObjectId.putIfAbsent(device.getObjectId(), device) == null) {
+                list.add(device);
+            }
+        }
+        Snapshot replacement = new Snapshot(snapshot.getVersion() + 1, Collections.unmodifiableList(list),
+                Collections.unmodifiableMap(byObjectId));
+        snapshot = replacement;
+        return replacement;
+    }
+
+    /**
+     * An immutable view of the devices known at one point in time.
+     */
+    public static final class Snapshot {
+        private final long version;
+        private final List<LutronDevice> devices;
+        private final Map<Integer, LutronDevice> byObjectId;
+
+        private Snapshot(long version, List<LutronDevice> devices, Map<Integer, LutronDevice> byObjectId) {
+            this.version = version;
+            this.devices = devices;
+            this.byObjectId = byObjectId;
+        }
+
+        /**
+         * @return a number that grows each time the set of devices changes.
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * @return the devices, in the order the gateway listed them; the list cannot be modified.
+         */
+        public List<LutronDevice> getDevices() {
+            return devices;
+        }
+
+        public @Nullable LutronDevice get(int objectId) {
+            return byObjectId.get(objectId);
+        }
+
+        public boolean contains(int objectId) {
+            return byObjectId.containsKey(objectId);
+        }
+
+        public int size() {
+            return devices.size();
+        }
+    }
+}
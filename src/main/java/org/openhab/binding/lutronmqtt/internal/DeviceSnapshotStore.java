@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.binding.lutronmqtt.model.LutronDevice;
+
+/**
+ * The {@link DeviceSnapshotStore} keeps a compact binary copy of a bridge's device inventory and the last reported
+ * properties of each device, so that a restarted bridge knows its devices before the gateway has been asked.
+ *
+ * The snapshot is replaced atomically, so a crash while saving leaves the previous snapshot in place.
+ *
+ * @author William Welliver - Initial contribution
+ */
+public class DeviceSnapshotStore {
+    private static final int MAGIC = 0x4C4D5153; // "LMQS"
+    private static final int VERSION = 1;
+
+    private final Path file;
+
+    public DeviceSnapshotStore(Path file) {
+        this.file = file;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * @return the devices in the snapshot, or an empty list if there is no snapshot.
+     * @throws IOException if the snapshot could not be read or is not one this version understands.
+     */
+    public List<LutronDevice> load() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unrecognized snapshot format in " + file);
+            }
+            int deviceCount = in.readInt();
+            List<LutronDevice> devices = new ArrayList<>(deviceCount);
+            for (int i = 0; i < deviceCount; i++) {
+                LutronDevice device = new LutronDevice();
+                device.setObjectId(in.readInt());
+                device.setName(readString(in));
+                device.setDescription(readString(in));
+                device.setSerialNumber(in.readInt());
+                device.setDeviceClass(in.readInt());
+                int propertyCount = in.readUnsignedShort();
+                for (int p = 0; p < propertyCount; p++) {
+                    device.restoreProperty(in.readUnsignedByte(), in.readInt(), in.readLong());
+                }
+                devices.add(device);
+            }
+            return devices;
+        } catch (NoSuchFileException e) {
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Writes a snapshot of the given devices, replacing any previous one.
+     */
+    public void save(Collection<LutronDevice> devices) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(devices.size());
+            for (LutronDevice device : devices) {
+                out.writeInt(device.getObjectId());
+                writeString(out, device.getName());
+                writeString(out, device.getDescription());
+                out.writeInt(device.getSerialNumber());
+                out.writeInt(device.getDeviceClass());
+
+                // property numbers are at most LutronPropertyStore.MAX_PROPERTY_NUMBER, so they fit in a byte
+                int limit = device.getPropertyNumberLimit();
+                int propertyCount = 0;
+                for (int p = 0; p < limit; p++) {
+                    if (device.hasProperty(p)) {
+                        propertyCount++;
+                    }
+                }
+                out.writeShort(propertyCount);
+                for (int p = 0; p < limit && propertyCount > 0; p++) {
+                    int value = device.getProperty(p);
+                    if (value != LutronDevice.PROPERTY_UNKNOWN) {
+                        out.writeByte(p);
+                        out.writeInt(value);
+                        out.writeLong(device.getPropertyLastUpdated(p));
+                        propertyCount--;
+                    }
+                }
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Removes the snapshot, along with any left over from an interrupted save.
+     */
+    public void delete() throws IOException {
+        Files.deleteIfExists(file.resolveSibling(file.getFileName() + ".tmp"));
+        Files.deleteIfExists(file);
+    }
+
+    private static void writeString(DataOutputStream out, @Nullable String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) {
+            out.writeUTF(s);
+        }
+    }
+
+    private static @Nullable String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.internal;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.openhab.binding.lutronmqtt.handler.DeviceStatusListener;
+import org.openhab.binding.lutronmqtt.model.LutronDevice;
+
+/**
+ * The {@link DeviceStatusListenerRegistry} routes device notifications to the listeners registered for that
+ * device's objectId, plus any wildcard listeners that want to hear about every device (such as discovery).
+ *
+ * Listeners are held in small copy-on-write arrays, so notification takes no locks and registration may happen
+ * from any thread.
+ *
+ * @author William Welliver - Initial contribution
+ */
+public class DeviceStatusListenerRegistry {
+    private static final DeviceStatusListener[] NONE = new DeviceStatusListener[0];
+
+    private final ConcurrentMap<Integer, DeviceStatusListener[]> listenersByObjectId = new ConcurrentHashMap<>();
+    private volatile DeviceStatusListener[] wildcardListeners = NONE;
+
+    /**
+     * Registers a listener for updates to every device.
+     */
+    public synchronized void register(DeviceStatusListener listener) {
+        wildcardListeners = add(wildcardListeners, listener);
+    }
+
+    /**
+     * Registers a listener for updates to the device with the given objectId only.
+     */
+    public void register(int objectId, final DeviceStatusListener listener) {
+        listenersByObjectId.merge(objectId, new DeviceStatusListener[] { listener },
+                (current, added) -> add(current, listener));
+    }
+
+    /**
+     * Removes a listener from every registration it holds.
+     */
+    public void unregister(final DeviceStatusListener listener) {
+        synchronized (this) {
+            wildcardListeners = remove(wildcardListeners, listener);
+        }
+        for (Integer objectId : listenersByObjectId.keySet()) {
+            unregister(objectId, listener);
+        }
+    }
+
+    /**
+     * Removes a listener registered for the given objectId.
+     */
+    public void unregister(int objectId, final DeviceStatusListener listener) {
+        listenersByObjectId.computeIfPresent(objectId, (id, current) -> {
+            DeviceStatusListener[] remaining = remove(current, listener);
+            return remaining.length == 0 ? null : remaining;
+        });
+    }
+
+    public void notifyDeviceFound(LutronDevice device) {
+        for (DeviceStatusListener listener : listenersFor(device.getObjectId())) {
+            listener.onDeviceFound(device);
+        }
+        for (DeviceStatusListener listener : wildcardListeners) {
+            listener.onDeviceFound(device);
+        }
+    }
+
+    public void notifyDeviceRemoved(LutronDevice device) {
+        for (DeviceStatusListener listener : listenersFor(device.getObjectId())) {
+            listener.onDeviceRemoved(device);
+        }
+        for (DeviceStatusListener listener : wildcardListeners) {
+            listener.onDeviceRemoved(device);
+        }
+    }
+
+    public void notifyDeviceStateChanged(LutronDevice device) {
+        for (DeviceStatusListener listener : listenersFor(device.getObjectId())) {
+            listener.onDeviceStateChanged(device);
+        }
+        for (DeviceStatusListener listener : wildcardListeners) {
+            listener.onDeviceStateChanged(device);
+        }
+    }
+
+    /**
+     * @return the total number of registrations, wildcard and per device.
+     */
+    public int size() {
+        int size = wildcardListeners.length;
+        for (DeviceStatusListener[] listeners : listenersByObjectId.values()) {
+            size += listeners.length;
+        }
+        return size;
+    }
+
+    private DeviceStatusListener[] listenersFor(int objectId) {
+        DeviceStatusListener[] listeners = listenersByObjectId.get(objectId);
+        return listeners == null ? NONE : listeners;
+    }
+
+    private static DeviceStatusListener[] add(DeviceStatusListener[] current, DeviceStatusListener listener) {
+        for (DeviceStatusListener l : current) {
+            if (l == listener) {
+                return current;
+            }
+        }
+        DeviceStatusListener[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = listener;
+        return updated;
+    }
+
+    private static DeviceStatusListener[] remove(DeviceStatusListener[] current, DeviceStatusListener listener) {
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == listener) {
+                DeviceStatusListener[] updated = new DeviceStatusListener[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                return updated;
+            }
+        }
+        return current;
+    }
+}
@@ -0,0 +1,174 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.internal;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link InventoryPoller} decides when the gateway is asked for its device list, and whether a device list
+ * needs to be processed at all.
+ *
+ * Each device list payload is hashed; a payload identical to the previous one is reported as unchanged so that it
+ * can be skipped, and the polling interval doubles, up to a maximum, while the inventory stays the same. A changed
+ * inventory or a reconnect ({@link #start(long)}) brings the interval back to its minimum. A sign that the inventory
+ * is out of date ({@link #pollSoon()}) brings the next poll forward, but at most once per interval, so that a device
+ * the gateway reports but never lists does not keep the inventory from backing off.
+ *
+ * @author William Welliver - Initial contribution
+ */
+public class InventoryPoller {
+    /**
+     * How long {@link #pollSoon()} waits, so that a burst of unknown devices results in a single poll.
+     */
+    private static final long POLL_SOON_MILLIS = 2000;
+
+    private final Logger logger = LoggerFactory.getLogger(InventoryPoller.class);
+
+    private final ScheduledExecutorService scheduler;
+    private final Runnable request;
+    private final long minIntervalMillis;
+    private final long maxIntervalMillis;
+
+    private long intervalMillis;
+    private long lastHash;
+    private long skipped;
+    private boolean running;
+    private boolean polledSoon;
+    private long polledSoonAt;
+    private ScheduledFuture<?> nextPoll;
+
+    /**
+     * @param request
+     *            sends the request for the device list
+     * @param minIntervalSeconds
+     *            the polling interval after a change or a reconnect
+     * @param maxIntervalSeconds
+     *            the longest the interval grows to while the inventory is unchanged
+     */
+    public InventoryPoller(ScheduledExecutorService scheduler, Runnable request, long minIntervalSeconds,
+            long maxIntervalSeconds) {
+        this.scheduler = scheduler;
+        this.request = request;
+        this.minIntervalMillis = TimeUnit.SECONDS.toMillis(Math.max(1, minIntervalSeconds));
+        this.maxIntervalMillis = Math.max(this.minIntervalMillis, TimeUnit.SECONDS.toMillis(maxIntervalSeconds));
+        this.intervalMillis = this.minIntervalMillis;
+    }
+
+    /**
+     * (Re)starts polling at the minimum interval, with the first poll after the given delay.
+     */
+    public synchronized void start(long initialDelayMillis) {
+        running = true;
+        intervalMillis = minIntervalMillis;
+        schedule(initialDelayMillis);
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (nextPoll != null) {
+            nextPoll.cancel(false);
+            nextPoll = null;
+        }
+    }
+
+    /**
+     * Polls shortly, unless a poll is already due sooner or the last early poll was less than one interval ago.
+     */
+    public synchronized void pollSoon() {
+        if (!running) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (polledSoon && now - polledSoonAt < TimeUnit.MILLISECONDS.toNanos(intervalMillis)) {
+            return;
+        }
+        if (nextPoll == null || nextPoll.getDelay(TimeUnit.MILLISECONDS) > POLL_SOON_MILLIS) {
+            polledSoon = true;
+            polledSoonAt = now;
+            schedule(POLL_SOON_MILLIS);
+        }
+    }
+
+    /**
+     * Records a device list received from the gateway and adjusts the polling interval.
+     *
+     * @return true if the payload differs from the previous device list and should be processed.
+     */
+    public synchronized boolean inventoryReceived(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        long hash = ((long) payload.length << 32) | crc.getValue();
+
+        if (hash == lastHash) {
+            skipped++;
+            intervalMillis = Math.min(intervalMillis * 2, maxIntervalMillis);
+            logger.debug("Device list unchanged; next poll in {} s", TimeUnit.MILLISECONDS.toSeconds(intervalMillis));
+            return false;
+        }
+        lastHash = hash;
+        intervalMillis = minIntervalMillis;
+        return true;
+    }
+
+    /**
+     * Forgets the last device list, so that the next one is processed even if it has not changed.
+     */
+    public synchronized void invalidate() {
+        lastHash = 0;
+    }
+
+    /**
+     * @return the current polling interval, in seconds.
+     */
+    public synchronized long getIntervalSeconds() {
+        return TimeUnit.MILLISECONDS.toSeconds(intervalMillis);
+    }
+
+    /**
+     * @return the number of device lists skipped because they had not changed.
+     */
+    public synchronized long getSkippedCount() {
+        return skipped;
+    }
+
+    private void schedule(long delayMillis) {
+        if (nextPoll != null) {
+            nextPoll.cancel(false);
+        }
+        nextPoll = scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                poll();
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void poll() {
+        try {
+            request.run();
+        } catch (RuntimeException e) {
+            logger.warn("Unable to request the device list.", e);
+        }
+        synchronized (this) {
+            if (running) {
+                schedule(intervalMillis);
+            }
+        }
+    }
+}
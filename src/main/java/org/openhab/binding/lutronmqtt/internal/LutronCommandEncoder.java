@@ -0,0 +1,158 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.internal;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The {@link LutronCommandEncoder} writes the JSON commands understood by the Lutron-MQTT gateway into a reusable
+ * byte buffer, straight from primitive arguments. Encoding allocates nothing once the buffer has grown to fit the
+ * largest command; {@link #toByteArray()} makes the one copy that is handed to the MQTT client.
+ *
+ * An encoder is not thread safe; use {@link #get()} for one bound to the current thread.
+ *
+ * @author William Welliver - Initial contribution
+ */
+public class LutronCommandEncoder {
+    /**
+     * The ObjectType the gateway expects for zones (loads) in GoToLevel and RuntimePropertyQuery commands.
+     */
+    public static final int OBJECT_TYPE_ZONE = 15;
+
+    private static final byte[] GO_TO_LEVEL = ascii("{\"cmd\":\"GoToLevel\",\"args\":{\"ObjectId\":");
+    private static final byte[] OBJECT_TYPE = ascii(",\"ObjectType\":");
+    private static final byte[] FADE = ascii(",\"Fade\":");
+    private static final byte[] DELAY = ascii(",\"Delay\":");
+    private static final byte[] LEVEL = ascii(",\"Level\":");
+    private static final byte[] PROPERTY_QUERY = ascii("{\"cmd\":\"RuntimePropertyQuery\",\"args\":{\"Params\":[");
+    private static final byte[] GET_DEVICES = ascii("{\"cmd\":\"GetDevices\",\"args\":{}}");
+
+    private static final ThreadLocal<LutronCommandEncoder> ENCODERS = ThreadLocal
+            .withInitial(LutronCommandEncoder::new);
+
+    private byte[] buffer = new byte[128];
+    private int length;
+
+    /**
+     * @return an encoder for use by the current thread.
+     */
+    public static LutronCommandEncoder get() {
+        return ENCODERS.get();
+    }
+
+    /**
+     * Encodes {"cmd":"GoToLevel","args":{"ObjectId":..,"ObjectType":15,"Fade":..,"Delay":..,"Level":..}}.
+     */
+    public LutronCommandEncoder goToLevel(int objectId, int level, int fade, int delay) {
+        length = 0;
+        append(GO_TO_LEVEL).append(objectId);
+        append(OBJECT_TYPE).append(OBJECT_TYPE_ZONE);
+        append(FADE).append(fade);
+        append(DELAY).append(delay);
+        append(LEVEL).append(level);
+        return append('}').append('}');
+    }
+
+    /**
+     * Encodes a RuntimePropertyQuery for the level of objectIds[from] up to, but not including, objectIds[to].
+     */
+    public LutronCommandEncoder runtimePropertyQuery(int[] objectIds, int from, int to) {
+        length = 0;
+        append(PROPERTY_QUERY);
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                append(',');
+            }
+            append('[').append(objectIds[i]).append(',').append(OBJECT_TYPE_ZONE).append(",[1]]");
+        }
+        return append(']').append('}').append('}');
+    }
+
+    /**
+     * Encodes {"cmd":"GetDevices","args":{}}.
+     */
+    public LutronCommandEncoder getDevices() {
+        length = 0;
+        return append(GET_DEVICES);
+    }
+
+    /**
+     * @return a copy of the encoded command.
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, length);
+    }
+
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return new String(buffer, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private LutronCommandEncoder append(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+        return this;
+    }
+
+    private LutronCommandEncoder append(String ascii) {
+        ensureCapacity(ascii.length());
+        for (int i = 0; i < ascii.length(); i++) {
+            buffer[length++] = (byte) ascii.charAt(i);
+        }
+        return this;
+    }
+
+    private LutronCommandEncoder append(char c) {
+        ensureCapacity(1);
+        buffer[length++] = (byte) c;
+        return this;
+    }
+
+    private LutronCommandEncoder append(int value) {
+        // at most 11 characters: a sign and 10 digits
+        ensureCapacity(11);
+        long v = value;
+        if (v < 0) {
+            buffer[length++] = '-';
+            v = -v;
+        }
+        int start = length;
+        do {
+            buffer[length++] = (byte) ('0' + (v % 10));
+            v /= 10;
+        } while (v != 0);
+        // digits were written least significant first
+        for (int i = start, j = length - 1; i < j; i++, j--) {
+            byte t = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = t;
+        }
+        return this;
+    }
+
+    private void ensureCapacity(int additional) {
+        if (length + additional > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + additional));
+        }
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
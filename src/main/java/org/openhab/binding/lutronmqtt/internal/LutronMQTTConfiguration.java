@@ -20,7 +20,66 @@ package org.openhab.binding.lutronmqtt.internal;
 public class LutronMQTTConfiguration {
 
     /**
-     * Sample configuration parameter. Replace with you own.
+     * The token authorized by the lutron-mqtt infrastructure.
      */
-    public String config1;
+    public String token;
+
+    /**
+     * The first level of the topics the gateway publishes to and reads commands from. Gateways sharing a broker
+     * need distinct prefixes.
+     */
+    public String topicPrefix = "lutron";
+
+    /**
+     * Maximum time, in milliseconds, that device updates are held back so that bursts for the same device are
+     * delivered to handlers as one. 0 disables coalescing.
+     */
+    public int coalesceDelay = 100;
+
+    /**
+     * Maximum number of devices queried in a single RuntimePropertyQuery.
+     */
+    public int refreshBatchSize = 50;
+
+    /**
+     * Time, in milliseconds, between consecutive RuntimePropertyQuery batches.
+     */
+    public int refreshBatchInterval = 50;
+
+    /**
+     * Minimum time, in milliseconds, between two level commands sent to the same device. Commands arriving
+     * faster are collapsed so that only the newest level is sent. 0 sends every command.
+     */
+    public int commandDebounce = 200;
+
+    /**
+     * Time, in milliseconds, to wait for the broker to acknowledge a command before reporting it as failed.
+     */
+    public int publishTimeout = 5000;
+
+    /**
+     * Whether a commanded level is shown on the channel straight away, rather than once the gateway reports it.
+     */
+    public boolean optimisticUpdates = false;
+
+    /**
+     * Time, in milliseconds, a commanded level is shown before it is reverted if the gateway has not reported it.
+     */
+    public int optimisticTimeout = 3000;
+
+    /**
+     * Time, in seconds, between requests for the device list after it has changed or the bridge has reconnected.
+     */
+    public int inventoryInterval = 300;
+
+    /**
+     * Longest time, in seconds, between requests for the device list; the interval doubles towards this while the
+     * device list stays the same.
+     */
+    public int inventoryMaxInterval = 3600;
+
+    /**
+     * Whether the bridge collects metrics and publishes them over JMX.
+     */
+    public boolean metricsEnabled = false;
 }
@@ -0,0 +1,37 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.internal;
+
+/**
+ * The {@link LutronMQTTGroupConfiguration} class contains fields mapping group thing configuration parameters.
+ *
+ * @author William Welliver - Initial contribution
+ */
+public class LutronMQTTGroupConfiguration {
+
+    /**
+     * The objectIds of the devices in the group, separated by commas.
+     */
+    public String members;
+
+    /**
+     * The level, in percent, of each member when the scene is turned on, separated by commas. Empty turns every
+     * member fully on.
+     */
+    public String sceneLevels;
+
+    /**
+     * Time, in seconds, the members take to fade to a new level.
+     */
+    public int fade = 0;
+}
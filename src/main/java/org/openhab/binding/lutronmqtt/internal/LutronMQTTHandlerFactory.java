@@ -48,6 +48,8 @@ public class LutronMQTTHandlerFactory extends BaseThingHandlerFactory {
 
     public final static Set<ThingTypeUID> SUPPORTED_THING_TYPES_UIDS = LutronMQTTBindingConstants.SUPPORTED_THING_TYPES_UIDS;
     private Map<ThingUID, ServiceRegistration<?>> discoveryServiceRegs = new HashMap<>();
+    // bridges pointing at the same broker share its connection.
+    private final MqttConnectionPool connectionPool = new MqttConnectionPool();
 
     @Override
     public boolean supportsThingType(ThingTypeUID thingTypeUID) {
@@ -64,7 +66,7 @@ public class LutronMQTTHandlerFactory extends BaseThingHandlerFactory {
 
         if (thingTypeUID.equals(THING_TYPE_MQTTHUB)) {
             logger.warn("Creating hub handler");
-            LutronMQTTHubHandler handler = new LutronMQTTHubHandler((Bridge) thing);
+            LutronMQTTHubHandler handler = new LutronMQTTHubHandler((Bridge) thing, connectionPool);
             registerDeviceDiscoveryService(handler);
             return handler;
         } else if (thingTypeUID.equals(THING_TYPE_REMOTE)) {
@@ -79,6 +81,9 @@ public class LutronMQTTHandlerFactory extends BaseThingHandlerFactory {
         } else if (thingTypeUID.equals(THING_TYPE_VARIABLE_FAN)) {
             LutronMQTTVariableFanHandler handler = new LutronMQTTVariableFanHandler(thing);
             return handler;
+        } else if (thingTypeUID.equals(THING_TYPE_GROUP)) {
+            LutronMQTTGroupHandler handler = new LutronMQTTGroupHandler(thing);
+            return handler;
         } else if (thingTypeUID.equals(THING_TYPE_SHADE)) {
             LutronMQTTShadeHandler handler = new LutronMQTTShadeHandler(thing);
             return handler;
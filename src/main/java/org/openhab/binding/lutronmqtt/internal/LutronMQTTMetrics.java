@@ -0,0 +1,344 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.internal;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.binding.lutronmqtt.handler.LutronMQTTHubHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link LutronMQTTMetrics} collects rates and timings from a bridge's hot paths and publishes them over JMX as
+ * org.openhab.binding.lutronmqtt:type=Metrics,bridge=&lt;bridge id&gt;.
+ *
+ * Counters kept here are only updated when metrics are enabled; callers should also check {@link #isEnabled()}
+ * before taking timestamps, so that a disabled instance costs a single field read. Gauges such as queue depths are
+ * read from the bridge when JMX asks for them.
+ *
+ * @author William Welliver - Initial contribution
+ */
+public class LutronMQTTMetrics implements LutronMQTTMetricsMBean {
+    private static final String DOMAIN = "org.openhab.binding.lutronmqtt";
+
+    private final Logger logger = LoggerFactory.getLogger(LutronMQTTMetrics.class);
+
+    private final LutronMQTTHubHandler hub;
+    private final boolean enabled;
+
+    private final LongAdder statusMessages = new LongAdder();
+    private final LongAdder eventMessages = new LongAdder();
+    private final LongAdder remoteMessages = new LongAdder();
+    private final LongAdder otherMessages = new LongAdder();
+    private final Timer decode = new Timer();
+    private final Timer dispatch = new Timer();
+    private final LongAdder reconnects = new LongAdder();
+
+    private @Nullable ObjectName objectName;
+
+    public LutronMQTTMetrics(LutronMQTTHubHandler hub, boolean enabled) {
+        this.hub = hub;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Counts a message received from the broker.
+     */
+    public void messageReceived(String topic) {
+        if (!enabled) {
+            return;
+        }
+        if (topic.endsWith("/events")) {
+            eventMessages.increment();
+        } else if (topic.endsWith("/status")) {
+            statusMessages.increment();
+        } else if (topic.endsWith("/remote")) {
+            remoteMessages.increment();
+        } else {
+            otherMessages.increment();
+        }
+    }
+
+    /**
+     * Records the time taken to decode one message.
+     */
+    public void recordDecode(long nanos) {
+        if (enabled) {
+            decode.record(nanos);
+        }
+    }
+
+    /**
+     * Records the time taken to deliver one device notification to its listeners.
+     */
+    public void recordDispatch(long nanos) {
+        if (enabled) {
+            dispatch.record(nanos);
+        }
+    }
+
+    /**
+     * Counts a re-established broker connection.
+     */
+    public void reconnected() {
+        if (enabled) {
+            reconnects.increment();
+        }
+    }
+
+    /**
+     * Registers this instance with the platform MBean server, if metrics are enabled.
+     */
+    public void register(String bridgeId) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            ObjectName name = new ObjectName(DOMAIN + ":type=Metrics,bridge=" + ObjectName.quote(bridgeId));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+            objectName = name;
+        } catch (JMException e) {
+            logger.warn("Unable to register metrics for bridge {}.", bridgeId, e);
+        }
+    }
+
+    public void unregister() {
+        ObjectName name = objectName;
+        if (name == null) {
+            return;
+        }
+        objectName = null;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        } catch (JMException e) {
+            logger.debug("Unable to unregister metrics {}.", name, e);
+        }
+    }
+
+    @Override
+    public long getStatusMessagesReceived() {
+        return statusMessages.sum();
+    }
+
+    @Override
+    public long getEventMessagesReceived() {
+        return eventMessages.sum();
+    }
+
+    @Override
+    public long getRemoteMessagesReceived() {
+        return remoteMessages.sum();
+    }
+
+    @Override
+    public long getOtherMessagesReceived() {
+        return otherMessages.sum();
+    }
+
+    @Override
+    public long getDecodeCount() {
+        return decode.count.sum();
+    }
+
+    @Override
+    public long getDecodeTimeAverage() {
+        return decode.averageMicros();
+    }
+
+    @Override
+    public long getDecodeTimeMax() {
+        return decode.maxMicros();
+    }
+
+    @Override
+    public long getDispatchCount() {
+        return dispatch.count.sum();
+    }
+
+    @Override
+    public long getDispatchTimeAverage() {
+        return dispatch.averageMicros();
+    }
+
+    @Override
+    public long getDispatchTimeMax() {
+        return dispatch.maxMicros();
+    }
+
+    @Override
+    public int getInboundQueueDepth() {
+        return hub.getInboundQueueDepth();
+    }
+
+    @Override
+    public long getInboundLagMillis() {
+        return hub.getInboundLagMillis();
+    }
+
+    @Override
+    public int getListenerQueueDepth() {
+        return hub.getListenerQueueDepth();
+    }
+
+    @Override
+    public long getListenerLagMillis() {
+        return hub.getListenerLagMillis();
+    }
+
+    @Override
+    public long getMessagesShed() {
+        return hub.getShedMessageCount();
+    }
+
+    @Override
+    public long getMessagesCoalesced() {
+        return hub.getCoalescedMessageCount();
+    }
+
+    @Override
+    public long getCommandsPublished() {
+        CommandPublisher publisher = hub.getCommandPublisher();
+        return publisher == null ? 0 : publisher.getPublishedCount();
+    }
+
+    @Override
+    public long getCommandsFailed() {
+        CommandPublisher publisher = hub.getCommandPublisher();
+        return publisher == null ? 0 : publisher.getFailedCount();
+    }
+
+    @Override
+    public long getCommandsTimedOut() {
+        CommandPublisher publisher = hub.getCommandPublisher();
+        return publisher == null ? 0 : publisher.getTimedOutCount();
+    }
+
+    @Override
+    public long getPublishLatencyAverage() {
+        CommandPublisher publisher = hub.getCommandPublisher();
+        return publisher == null ? 0 : publisher.getAverageLatencyMicros();
+    }
+
+    @Override
+    public long getPublishLatencyLast() {
+        CommandPublisher publisher = hub.getCommandPublisher();
+        return publisher == null ? 0 : publisher.getLastLatencyMicros();
+    }
+
+    @Override
+    public long getLevelCommandsRequested() {
+        return hub.getLevelCommandsRequested();
+    }
+
+    @Override
+    public long getLevelCommandsSent() {
+        return hub.getLevelCommandsSent();
+    }
+
+    @Override
+    public int getPendingPropertyUpdates() {
+        return hub.getPendingPropertyUpdateCount();
+    }
+
+    @Override
+    public long getInventoryIntervalSeconds() {
+        return hub.getInventoryIntervalSeconds();
+    }
+
+    @Override
+    public long getInventoriesSkipped() {
+        return hub.getSkippedInventoryCount();
+    }
+
+    @Override
+    public String getStartupStage() {
+        return hub.getStartupStage().name();
+    }
+
+    @Override
+    public long getLastStartupMillis() {
+        return hub.getLastStartupMillis();
+    }
+
+    @Override
+    public int getDeviceCount() {
+        return hub.getDeviceCount();
+    }
+
+    @Override
+    public int getListenerCount() {
+        return hub.getListenerCount();
+    }
+
+    @Override
+    public long getReconnectCount() {
+        return reconnects.sum();
+    }
+
+    @Override
+    public void reset() {
+        statusMessages.reset();
+        eventMessages.reset();
+        remoteMessages.reset();
+        otherMessages.reset();
+        decode.reset();
+        dispatch.reset();
+        reconnects.reset();
+    }
+
+    private static class Timer {
+        final LongAdder count = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+        }
+
+        long averageMicros() {
+            long n = count.sum();
+            return n == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalNanos.sum() / n);
+        }
+
+        long maxMicros() {
+            return TimeUnit.NANOSECONDS.toMicros(maxNanos.get());
+        }
+
+        void reset() {
+            count.reset();
+            totalNanos.reset();
+            maxNanos.set(0);
+        }
+    }
+}
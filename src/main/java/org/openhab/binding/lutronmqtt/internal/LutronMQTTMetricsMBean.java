@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.internal;
+
+/**
+ * The {@link LutronMQTTMetricsMBean} is the JMX view of a bridge's {@link LutronMQTTMetrics}. Times are in
+ * microseconds unless the attribute name says otherwise.
+ *
+ * @author William Welliver - Initial contribution
+ */
+public interface LutronMQTTMetricsMBean {
+
+    long getStatusMessagesReceived();
+
+    long getEventMessagesReceived();
+
+    long getRemoteMessagesReceived();
+
+    long getOtherMessagesReceived();
+
+    long getDecodeCount();
+
+    long getDecodeTimeAverage();
+
+    long getDecodeTimeMax();
+
+    long getDispatchCount();
+
+    long getDispatchTimeAverage();
+
+    long getDispatchTimeMax();
+
+    int getInboundQueueDepth();
+
+    long getInboundLagMillis();
+
+    int getListenerQueueDepth();
+
+    long getListenerLagMillis();
+
+    long getMessagesShed();
+
+    long getMessagesCoalesced();
+
+    long getCommandsPublished();
+
+    long getCommandsFailed();
+
+    long getCommandsTimedOut();
+
+    long getPublishLatencyAverage();
+
+    long getPublishLatencyLast();
+
+    long getLevelCommandsRequested();
+
+    long getLevelCommandsSent();
+
+    int getPendingPropertyUpdates();
+
+    long getInventoryIntervalSeconds();
+
+    long getInventoriesSkipped();
+
+    String getStartupStage();
+
+    long getLastStartupMillis();
+
+    int getDeviceCount();
+
+    int getListenerCount();
+
+    long getReconnectCount();
+
+    /**
+     * Clears the counters and timers recorded by the binding itself.
+     */
+    void reset();
+}
@@ -0,0 +1,406 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.internal;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.binding.lutronmqtt.model.ListDevicesEvent;
+import org.openhab.binding.lutronmqtt.model.LutronDevice;
+import org.openhab.binding.lutronmqtt.model.LutronGatewayEvent;
+import org.openhab.binding.lutronmqtt.model.LutronStatusMessage;
+import org.openhab.binding.lutronmqtt.model.RuntimePropertyUpdateEvent;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * The {@link LutronMessageDecoder} turns raw MQTT payloads published by the Lutron-MQTT gateway into typed
+ * messages. Payloads are streamed straight from the received bytes, so no intermediate String or generic map is
+ * built for a message.
+ *
+ * Instances hold no state and may be shared between threads.
+ *
+ * @author William Welliver - Initial contribution
+ */
+public class LutronMessageDecoder {
+    private static final long NO_VALUE = Long.MIN_VALUE;
+
+    private static final byte[] CMD_KEY = "\"cmd\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] OBJECT_ID_KEY = "\"ObjectId\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LIST_DEVICES_VALUE = ("\"" + LutronGatewayEvent.CMD_LIST_DEVICES + "\"")
+            .getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Decodes a lutron/status payload, such as {"state": "running"}.
+     */
+    public LutronStatusMessage decodeStatus(byte[] payload) throws IOException {
+        JsonReader reader = open(payload);
+        try {
+            String state = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("state".equals(reader.nextName())) {
+                    state = readString(reader);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return new LutronStatusMessage(state);
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException("Malformed status payload", e);
+        }
+    }
+
+    /**
+     * Decodes a lutron/events payload of the form {"cmd": ..., "args": ...}.
+     *
+     * @return the decoded event, or null if the payload carries no command
+     */
+    public @Nullable LutronGatewayEvent decodeGatewayEvent(byte[] payload) throws IOException {
+        JsonReader reader = open(payload);
+        try {
+            String cmd = null;
+            LutronGatewayEvent event = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "cmd":
+                        cmd = readString(reader);
+                        break;
+                    case "args":
+                        event = readArgs(reader, cmd);
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+
+            if (cmd == null) {
+                return null;
+            }
+            if (event != null && cmd.equals(event.getCommand())) {
+                return event;
+            }
+            return new LutronGatewayEvent(cmd);
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException("Malformed gateway event payload", e);
+        }
+    }
+
+    /**
+     * Tells, from its first bytes and without decoding it, whether a lutron/events payload is a ListDevices event.
+     * Only payloads that name their command first are recognized; any others are reported as false.
+     */
+    public boolean isListDevices(byte[] payload) {
+        int pos = skipWhitespace(payload, 0);
+        if (pos >= payload.length || payload[pos] != '{') {
+            return false;
+        }
+        pos = matches(payload, skipWhitespace(payload, pos + 1), CMD_KEY);
+        if (pos < 0) {
+            return false;
+        }
+        pos = skipWhitespace(payload, pos);
+        if (pos >= payload.length || payload[pos] != ':') {
+            return false;
+        }
+        return matches(payload, skipWhitespace(payload, pos + 1), LIST_DEVICES_VALUE) >= 0;
+    }
+
+    /**
+     * Finds, without decoding it, the object id a lutron/events payload is about: the value of the first "ObjectId"
+     * key, which for a RuntimePropertyUpdate is the device updated. It is meant for sorting payloads before they are
+     * decoded, so a key appearing inside a string value could mislead it.
+     *
+     * @return the object id, or -1 if the payload has no "ObjectId" key with a non-negative integer value.
+     */
+    public int findObjectId(byte[] payload) {
+        int last = payload.length - OBJECT_ID_KEY.length;
+        for (int i = 0; i <= last; i++) {
+            if (payload[i] != '"') {
+                continue;
+            }
+            int pos = matches(payload, i, OBJECT_ID_KEY);
+            if (pos < 0) {
+                continue;
+            }
+            pos = skipWhitespace(payload, pos);
+            if (pos >= payload.length || payload[pos] != ':') {
+                return -1;
+            }
+            pos = skipWhitespace(payload, pos + 1);
+            long value = 0;
+            int start = pos;
+            while (pos < payload.length && payload[pos] >= '0' && payload[pos] <= '9' && value <= Integer.MAX_VALUE) {
+                value = value * 10 + (payload[pos++] - '0');
+            }
+            return pos == start || value > Integer.MAX_VALUE ? -1 : (int) value;
+        }
+        return -1;
+    }
+
+    private static int skipWhitespace(byte[] payload, int pos) {
+        while (pos < payload.length && (payload[pos] == ' ' || payload[pos] == '\t' || payload[pos] == '\n'
+                || payload[pos] == '\r')) {
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * @return the position after expected if the payload holds it at pos, or -1 if it does not.
+     */
+    private static int matches(byte[] payload, int pos, byte[] expected) {
+        if (pos + expected.length > payload.length) {
+            return -1;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (payload[pos + i] != expected[i]) {
+                return -1;
+            }
+        }
+        return pos + expected.length;
+    }
+
+    private @Nullable LutronGatewayEvent readArgs(JsonReader reader, @Nullable String cmd) throws IOException {
+        JsonToken token = reader.peek();
+        // args normally follow cmd, but if they don't we go by the shape of the value and check the command later.
+        if (LutronGatewayEvent.CMD_LIST_DEVICES.equals(cmd) || (cmd == null && token == JsonToken.BEGIN_ARRAY)) {
+            return readDeviceList(reader);
+        } else if (LutronGatewayEvent.CMD_RUNTIME_PROPERTY_UPDATE.equals(cmd)
+                || (cmd == null && token == JsonToken.BEGIN_OBJECT)) {
+            return readPropertyUpdate(reader);
+        }
+        reader.skipValue();
+        return null;
+    }
+
+    private ListDevicesEvent readDeviceList(JsonReader reader) throws IOException {
+        List<LutronDevice> devices = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                devices.add(readDevice(reader));
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endArray();
+        return new ListDevicesEvent(devices);
+    }
+
+    private LutronDevice readDevice(JsonReader reader) throws IOException {
+        LutronDevice device = new LutronDevice();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "ObjectId":
+                    device.setObjectId(readInt(reader));
+                    break;
+                case "SerialNumber":
+                    device.setSerialNumber(readInt(reader));
+                    break;
+                case "DeviceClass":
+                    device.setDeviceClass(readInt(reader));
+                    break;
+                case "Name":
+                    device.setName(readString(reader));
+                    break;
+                case "Description":
+                    device.setDescription(readString(reader));
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        return device;
+    }
+
+    private RuntimePropertyUpdateEvent readPropertyUpdate(JsonReader reader) throws IOException {
+        int objectId = -1;
+        int[] numbers = new int[4];
+        int[] values = new int[4];
+        int count = 0;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "ObjectId":
+                    objectId = readInt(reader);
+                    break;
+                case "Properties":
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        // each property is a [number, value] pair
+                        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+                            reader.skipValue();
+                            continue;
+                        }
+                        reader.beginArray();
+                        long number = reader.hasNext() ? readPropertyInt(reader) : NO_VALUE;
+                        if (number != NO_VALUE) {
+                            long value = reader.hasNext() ? readPropertyInt(reader) : NO_VALUE;
+                            if (value != NO_VALUE) {
+                                if (count == numbers.length) {
+                                    numbers = Arrays.copyOf(numbers, count * 2);
+                                    values = Arrays.copyOf(values, count * 2);
+                                }
+                                numbers[count] = (int) number;
+                                values[count] = (int) value;
+                                count++;
+                            }
+                        }
+                        while (reader.hasNext()) {
+                            reader.skipValue();
+                        }
+                        reader.endArray();
+                    }
+                    reader.endArray();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        return new RuntimePropertyUpdateEvent(objectId, numbers, values, count);
+    }
+
+    /**
+     * Reads a single integral property number or value. Values that are not integers are consumed and reported as
+     * {@link #NO_VALUE}.
+     */
+    private static long readPropertyInt(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.NUMBER) {
+            double d = reader.nextDouble();
+            return d == Math.rint(d) ? (int) d : NO_VALUE;
+        } else if (token == JsonToken.STRING) {
+            try {
+                return Integer.parseInt(reader.nextString());
+            } catch (NumberFormatException e) {
+                return NO_VALUE;
+            }
+        }
+        reader.skipValue();
+        return NO_VALUE;
+    }
+
+    private static int readInt(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return 0;
+        }
+        // the gateway sends most numeric fields as strings; nextInt() accepts either form.
+        return reader.nextInt();
+    }
+
+    private static @Nullable String readString(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    private static JsonReader open(byte[] payload) {
+        JsonReader reader = new JsonReader(new Utf8ByteArrayReader(payload));
+        reader.setLenient(true);
+        return reader;
+    }
+
+    /**
+     * A {@link Reader} that decodes UTF-8 directly out of a byte array, without the intermediate buffers that an
+     * InputStreamReader allocates. Malformed sequences decode to U+FFFD, one per byte, without consuming the bytes
+     * that follow them.
+     */
+    private static final class Utf8ByteArrayReader extends Reader {
+        private final byte[] bytes;
+        private int pos;
+        private char pendingLowSurrogate;
+
+        Utf8ByteArrayReader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            int n = 0;
+            while (n < len) {
+                if (pendingLowSurrogate != 0) {
+                    cbuf[off + n++] = pendingLowSurrogate;
+                    pendingLowSurrogate = 0;
+                    continue;
+                }
+                if (pos >= bytes.length) {
+                    break;
+                }
+                int b = bytes[pos] & 0xff;
+                if (b < 0x80) {
+                    cbuf[off + n++] = (char) b;
+                    pos++;
+                } else if ((b >> 5) == 0x6 && continues(1)) {
+                    cbuf[off + n++] = (char) (((b & 0x1f) << 6) | (bytes[pos + 1] & 0x3f));
+                    pos += 2;
+                } else if ((b >> 4) == 0xe && continues(2)) {
+                    cbuf[off + n++] = (char) (((b & 0x0f) << 12) | ((bytes[pos + 1] & 0x3f) << 6)
+                            | (bytes[pos + 2] & 0x3f));
+                    pos += 3;
+                } else if ((b >> 3) == 0x1e && continues(3)) {
+                    int cp = ((b & 0x07) << 18) | ((bytes[pos + 1] & 0x3f) << 12) | ((bytes[pos + 2] & 0x3f) << 6)
+                            | (bytes[pos + 3] & 0x3f);
+                    cbuf[off + n++] = Character.highSurrogate(cp);
+                    pendingLowSurrogate = Character.lowSurrogate(cp);
+                    pos += 4;
+                } else {
+                    cbuf[off + n++] = '\uFFFD';
+                    pos++;
+                }
+            }
+            return n == 0 ? -1 : n;
+        }
+
+        /**
+         * @return true if the count bytes after pos are all continuation bytes.
+         */
+        private boolean continues(int count) {
+            if (pos + count >= bytes.length) {
+                return false;
+            }
+            for (int i = 1; i <= count; i++) {
+                if ((bytes[pos + i] & 0xc0) != 0x80) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
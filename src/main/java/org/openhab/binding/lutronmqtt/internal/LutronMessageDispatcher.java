@@ -0,0 +1,264 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.internal;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link LutronMessageDispatcher} runs work off the thread that submits it, on a fixed number of lanes. Work is
+ * submitted under a key, such as a device's object id; work with the same key always runs on the same lane, in the
+ * order it was submitted.
+ *
+ * Submitting never blocks, as the submitter is usually the MQTT callback thread, which every bridge on a broker
+ * shares. Instead, each key has a small backlog of its own: when it is full, the oldest waiting task for the key is
+ * shed to make room, and work that only needs to run for the latest state, submitted with
+ * {@link #dispatchLatest(int, Runnable)}, replaces a waiting task of the same kind rather than queuing behind it.
+ * The work waiting is therefore bounded by the number of keys, and both shed and replaced tasks are counted.
+ *
+ * @author William Welliver - Initial contribution
+ */
+public class LutronMessageDispatcher {
+    private static final long LAG_WARNING_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long LAG_WARNING_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final Logger logger = LoggerFactory.getLogger(LutronMessageDispatcher.class);
+
+    private final String name;
+    private final int capacity;
+    private final ThreadPoolExecutor[] lanes;
+    private final ConcurrentMap<Integer, KeyBacklog> backlogs = new ConcurrentHashMap<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong shed = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private volatile long lastLagNanos;
+    private volatile long lastLagWarning;
+
+    /**
+     * @param name
+     *            used for thread names and log messages
+     * @param laneCount
+     *            number of lanes (threads)
+     * @param capacity
+     *            maximum number of tasks waiting for each key
+     */
+    public LutronMessageDispatcher(String name, int laneCount, int capacity) {
+        this.name = name;
+        this.capacity = capacity;
+        this.lastLagWarning = System.nanoTime() - LAG_WARNING_INTERVAL_NANOS;
+        this.lanes = new ThreadPoolExecutor[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            // a lane holds at most one entry per key with work waiting, so its queue needs no bound of its own.
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                    new LaneThreadFactory(laneCount == 1 ? name : name + "-" + i));
+        }
+    }
+
+    /**
+     * Queues a task behind the work already waiting for the given key. If the key's backlog is full, its oldest
+     * task is shed.
+     *
+     * @return false if the dispatcher has been shut down and the task was not queued.
+     */
+    public boolean dispatch(int key, Runnable task) {
+        return submit(key, task, false);
+    }
+
+    /**
+     * Queues a task for the given key unless the newest task waiting for the key was also submitted this way, in
+     * which case the new task takes its place. This is meant for work that reads the current state when it runs
+     * rather than carrying a state of its own, such as telling listeners that a device changed.
+     *
+     * @return false if the dispatcher has been shut down and the task was not queued.
+     */
+    public boolean dispatchLatest(int key, Runnable task) {
+        return submit(key, task, true);
+    }
+
+    private boolean submit(int key, Runnable task, boolean replaceable) {
+        KeyBacklog backlog = backlogs.get(key);
+        if (backlog == null) {
+            backlog = backlogs.computeIfAbsent(key, k -> new KeyBacklog(lanes[Math.floorMod(k, lanes.length)]));
+        }
+        boolean schedule;
+        synchronized (backlog) {
+            TimedTask newest = backlog.tasks.peekLast();
+            if (replaceable && newest != null && newest.replaceable) {
+                // the replacement has been waiting as long as the task it replaces.
+                backlog.tasks.pollLast();
+                backlog.tasks.addLast(new TimedTask(task, true, newest.queuedAt));
+                coalesced.incrementAndGet();
+                return true;
+            }
+            if (backlog.tasks.size() >= capacity) {
+                backlog.tasks.pollFirst();
+                waiting.decrementAndGet();
+                taskShed();
+            }
+            backlog.tasks.addLast(new TimedTask(task, replaceable, System.nanoTime()));
+            waiting.incrementAndGet();
+            schedule = !backlog.scheduled;
+            backlog.scheduled = true;
+        }
+        return !schedule || backlog.schedule();
+    }
+
+    private void taskShed() {
+        long count = shed.incrementAndGet();
+        if (count == 1 || count % 100 == 0) {
+            logger.warn("{}: falling behind, {} messages shed so far.", name, count);
+        }
+    }
+
+    /**
+     * @return the number of tasks waiting across all lanes.
+     */
+    public int getQueueDepth() {
+        return waiting.get();
+    }
+
+    /**
+     * @return how long the most recently started task waited in its queue, in milliseconds.
+     */
+    public long getLagMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lastLagNanos);
+    }
+
+    /**
+     * @return the number of tasks shed because the backlog for their key was full.
+     */
+    public long getShedCount() {
+        return shed.get();
+    }
+
+    /**
+     * @return the number of tasks that took the place of one still waiting for the same key.
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    public void shutdown() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdownNow();
+        }
+    }
+
+    private void recordLag(long lag) {
+        lastLagNanos = lag;
+        if (lag > LAG_WARNING_NANOS) {
+            long now = System.nanoTime();
+            if (now - lastLagWarning > LAG_WARNING_INTERVAL_NANOS) {
+                lastLagWarning = now;
+                logger.warn("{} is falling behind: {} ms lag, {} queued.", name, TimeUnit.NANOSECONDS.toMillis(lag),
+                        getQueueDepth());
+            }
+        }
+    }
+
+    /**
+     * The work waiting for one key. While it has work, it is queued on its lane exactly once, and runs one task
+     * each time its turn comes, so that a busy key cannot hold up the other keys on the lane.
+     */
+    private class KeyBacklog implements Runnable {
+        private final ThreadPoolExecutor lane;
+        final ArrayDeque<TimedTask> tasks = new ArrayDeque<>();
+        // whether this backlog is queued on, or running on, its lane
+        boolean scheduled;
+
+        KeyBacklog(ThreadPoolExecutor lane) {
+            this.lane = lane;
+        }
+
+        boolean schedule() {
+            try {
+                lane.execute(this);
+                return true;
+            } catch (RejectedExecutionException e) {
+                // shut down; the work will never run.
+                synchronized (this) {
+                    waiting.addAndGet(-tasks.size());
+                    tasks.clear();
+                    scheduled = false;
+                }
+                return false;
+            }
+        }
+
+        @Override
+        public void run() {
+            TimedTask task;
+            boolean more;
+            synchronized (this) {
+                task = tasks.pollFirst();
+                more = !tasks.isEmpty();
+                scheduled = more;
+            }
+            if (task != null) {
+                waiting.decrementAndGet();
+                task.run();
+            }
+            if (more) {
+                schedule();
+            }
+        }
+    }
+
+    private class TimedTask implements Runnable {
+        private final Runnable task;
+        final boolean replaceable;
+        final long queuedAt;
+
+        TimedTask(Runnable task, boolean replaceable, long queuedAt) {
+            this.task = task;
+            this.replaceable = replaceable;
+            this.queuedAt = queuedAt;
+        }
+
+        @Override
+        public void run() {
+            recordLag(System.nanoTime() - queuedAt);
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.warn("{}: error while processing message.", name, e);
+            }
+        }
+    }
+
+    private static class LaneThreadFactory implements ThreadFactory {
+        private final String threadName;
+
+        LaneThreadFactory(String threadName) {
+            this.threadName = threadName;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, threadName);
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
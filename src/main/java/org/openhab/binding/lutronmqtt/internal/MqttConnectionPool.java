@@ -0,0 +1,151 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.internal;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.eclipse.smarthome.core.id.InstanceUUID;
+import org.eclipse.smarthome.io.transport.mqtt.MqttBrokerConnection;
+import org.eclipse.smarthome.io.transport.mqtt.MqttConnectionObserver;
+import org.eclipse.smarthome.io.transport.mqtt.MqttConnectionState;
+import org.eclipse.smarthome.io.transport.mqtt.reconnect.PeriodicReconnectStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link MqttConnectionPool} shares one broker connection between all bridges that use the same broker, so that
+ * each additional gateway adds subscriptions rather than another socket, reconnect strategy and callback thread.
+ *
+ * Connections are keyed by broker host and port and counted by user: the first bridge to connect starts a
+ * connection, and the last one to release it stops it. Every user is registered as an observer of the connection, and
+ * the connection hands each message only to the subscribers of its topic, so bridges with distinct topic prefixes
+ * never see each other's traffic.
+ *
+ * Acquiring a connection and connecting it are separate steps, so that a bridge can keep hold of the connection
+ * before any state change is reported to it.
+ *
+ * @author William Welliver - Initial contribution
+ */
+public class MqttConnectionPool {
+    private final Logger logger = LoggerFactory.getLogger(MqttConnectionPool.class);
+
+    private final Map<String, Entry> connections = new HashMap<>();
+
+    /**
+     * Returns the connection to the given broker, creating it if no bridge is using it yet. The connection is not
+     * started until {@link #connect(MqttBrokerConnection, MqttConnectionObserver)} is called.
+     */
+    public synchronized MqttBrokerConnection acquire(URI broker) {
+        String key = key(broker);
+        Entry entry = connections.get(key);
+        if (entry == null) {
+            MqttBrokerConnection connection = new MqttBrokerConnection(broker.getHost(), broker.getPort(), false,
+                    clientId());
+            connection.setReconnectStrategy(new PeriodicReconnectStrategy());
+            entry = new Entry(connection);
+            connections.put(key, entry);
+            logger.debug("Created MQTT connection to " + key);
+        }
+        entry.users++;
+        return entry.connection;
+    }
+
+    /**
+     * Informs the observer of the connection's state changes from now on, and starts the connection if it is not
+     * up or on its way up. If the connection is already up, no CONNECTED change will follow, which the caller can
+     * tell from {@link MqttBrokerConnection#connectionState()}.
+     */
+    public synchronized void connect(MqttBrokerConnection connection, MqttConnectionObserver observer) {
+        connection.addConnectionObserver(observer);
+        if (connection.connectionState() == MqttConnectionState.DISCONNECTED) {
+            start(connection.getHost() + ":" + connection.getPort(), connection);
+        }
+    }
+
+    /**
+     * Gives up a connection obtained from {@link #acquire(URI)}. The caller is expected to
+     * have unsubscribed its own topics first; the connection is stopped once it has no users left.
+     */
+    public synchronized void release(MqttBrokerConnection connection, MqttConnectionObserver observer) {
+        connection.removeConnectionObserver(observer);
+        for (Map.Entry<String, Entry> e : connections.entrySet()) {
+            Entry entry = e.getValue();
+            if (entry.connection != connection) {
+                continue;
+            }
+            if (--entry.users == 0) {
+                connections.remove(e.getKey());
+                logger.debug("Closing unused MQTT connection to " + e.getKey());
+                connection.stop();
+            }
+            return;
+        }
+    }
+
+    /**
+     * @return the number of bridges using the connection; 0 if it does not belong to this pool.
+     */
+    public synchronized int getUsers(MqttBrokerConnection connection) {
+        for (Entry entry : connections.values()) {
+            if (entry.connection == connection) {
+                return entry.users;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return the number of open broker connections.
+     */
+    public synchronized int size() {
+        return connections.size();
+    }
+
+    private void start(String key, MqttBrokerConnection connection) {
+        connection.start().whenComplete((started, error) -> {
+            if (error != null || !Boolean.TRUE.equals(started)) {
+                logger.warn("Unable to connect to MQTT broker " + key, error);
+            }
+        });
+    }
+
+    /**
+     * The pool holds at most one connection per broker, so an id naming this openHAB installation is unique on any
+     * broker, and stays the same whichever bridge happens to connect first. Brokers disconnect the older of two
+     * clients with the same id, so installations sharing a broker must never share an id.
+     */
+    private static String clientId() {
+        String instance = InstanceUUID.get();
+        if (instance == null) {
+            // the instance id could not be read or stored; fall back to an id unique to this run.
+            instance = Long.toHexString(System.currentTimeMillis());
+        }
+        return "openhab-lutron-mqtt-" + instance;
+    }
+
+    private static String key(URI broker) {
+        return broker.getHost().toLowerCase(Locale.ROOT) + ":" + broker.getPort();
+    }
+
+    private static class Entry {
+        final MqttBrokerConnection connection;
+        int users;
+
+        Entry(MqttBrokerConnection connection) {
+            this.connection = connection;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.internal;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+/**
+ * The {@link PropertyUpdateCoalescer} collapses bursts of property updates for the same device into a single
+ * notification. The first update for an objectId opens a window of at most the configured delay; further updates
+ * for that objectId within the window are absorbed, and when the window closes the listener is called once and
+ * reads whatever state the device holds by then, so the latest value always wins.
+ *
+ * @author William Welliver - Initial contribution
+ */
+public class PropertyUpdateCoalescer {
+    private final ScheduledExecutorService scheduler;
+    private final long maxDelayMillis;
+    private final IntConsumer listener;
+    private final Set<Integer> pending = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param scheduler
+     *            used to close coalescing windows
+     * @param maxDelayMillis
+     *            the longest an update is held back; 0 or less passes every update straight through
+     * @param listener
+     *            called with the objectId when a window closes
+     */
+    public PropertyUpdateCoalescer(ScheduledExecutorService scheduler, long maxDelayMillis, IntConsumer listener) {
+        this.scheduler = scheduler;
+        this.maxDelayMillis = maxDelayMillis;
+        this.listener = listener;
+    }
+
+    /**
+     * Records that the device with the given objectId has changed.
+     */
+    public void updated(final int objectId) {
+        if (maxDelayMillis <= 0) {
+            listener.accept(objectId);
+            return;
+        }
+        if (pending.add(objectId)) {
+            scheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    // clear the mark first so that an update arriving while we notify opens a new window.
+                    pending.remove(objectId);
+                    listener.accept(objectId);
+                }
+            }, maxDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @return the number of devices with updates currently being held back.
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+}
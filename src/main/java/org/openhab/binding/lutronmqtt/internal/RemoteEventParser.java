@@ -0,0 +1,230 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.internal;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * The {@link RemoteEventParser} reads the button events published by the gateway on lutron/remote, such as
+ * {"serial" : "C726CA", "action": "down", "button": "select"}, straight from the received bytes.
+ *
+ * The serial number is read as the hexadecimal number it is, and button and action names are looked up in a small
+ * table of names already seen, so a parse allocates nothing once every name has been met. Payloads are flat objects
+ * of unescaped strings, numbers and literals; anything else is rejected.
+ *
+ * A parser keeps the result of the last parse and is not thread safe; use {@link #get()} for one bound to the
+ * current thread.
+ *
+ * @author William Welliver - Initial contribution
+ */
+public class RemoteEventParser {
+    private static final int MAX_NAMES = 64;
+    private static final byte[] EMPTY = new byte[0];
+
+    private static final byte[] SERIAL = ascii("serial");
+    private static final byte[] ACTION = ascii("action");
+    private static final byte[] BUTTON = ascii("button");
+
+    private static final ThreadLocal<RemoteEventParser> PARSERS = ThreadLocal.withInitial(RemoteEventParser::new);
+
+    private byte[][] nameBytes = new byte[0][];
+    private String[] names = new String[0];
+
+    private int serial;
+    private @Nullable String action;
+    private @Nullable String button;
+
+    private byte[] payload = EMPTY;
+    private int pos;
+
+    /**
+     * @return a parser for use by the current thread.
+     */
+    public static RemoteEventParser get() {
+        return PARSERS.get();
+    }
+
+    /**
+     * Parses a remote event.
+     *
+     * @return true if the payload carried a serial number, an action and a button.
+     * @throws IOException if the payload is not a flat JSON object.
+     */
+    public boolean parse(byte[] payload) throws IOException {
+        this.payload = payload;
+        pos = 0;
+        serial = -1;
+        action = null;
+        button = null;
+        try {
+            expect('{');
+            if (peek() == '}') {
+                return false;
+            }
+            while (true) {
+                int keyStart = readStringBounds();
+                int keyEnd = pos - 1;
+                expect(':');
+                skipWhitespace();
+                if (payload[pos] == '"') {
+                    int valueStart = readStringBounds();
+                    int valueEnd = pos - 1;
+                    if (matches(SERIAL, keyStart, keyEnd)) {
+                        serial = parseHex(valueStart, valueEnd);
+                    } else if (matches(ACTION, keyStart, keyEnd)) {
+                        action = name(valueStart, valueEnd);
+                    } else if (matches(BUTTON, keyStart, keyEnd)) {
+                        button = name(valueStart, valueEnd);
+                    }
+                } else {
+                    skipLiteral();
+                }
+                int c = peek();
+                pos++;
+                if (c == '}') {
+                    break;
+                }
+                if (c != ',') {
+                    throw new IOException("Malformed remote payload at " + (pos - 1));
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Truncated remote payload", e);
+        } finally {
+            // the payload is not kept beyond the parse.
+            this.payload = EMPTY;
+        }
+        return serial >= 0 && action != null && button != null;
+    }
+
+    /**
+     * @return the serial number of the remote, or a negative number if the last payload did not carry a valid one.
+     */
+    public int getSerial() {
+        return serial;
+    }
+
+    public @Nullable String getAction() {
+        return action;
+    }
+
+    public @Nullable String getButton() {
+        return button;
+    }
+
+    /**
+     * Moves past a quoted string.
+     *
+     * @return the index of the first character of its contents; its closing quote is at pos - 1.
+     */
+    private int readStringBounds() throws IOException {
+        skipWhitespace();
+        if (payload[pos] != '"') {
+            throw new IOException("Expected a string at " + pos);
+        }
+        int start = ++pos;
+        while (payload[pos] != '"') {
+            if (payload[pos] == '\\') {
+                throw new IOException("Escaped strings are not expected in remote payloads");
+            }
+            pos++;
+        }
+        pos++;
+        return start;
+    }
+
+    private void skipLiteral() throws IOException {
+        int start = pos;
+        while (payload[pos] != ',' && payload[pos] != '}') {
+            byte c = payload[pos];
+            if (c == '{' || c == '[' || c == '"') {
+                throw new IOException("Nested values are not expected in remote payloads");
+            }
+            pos++;
+        }
+        if (pos == start) {
+            throw new IOException("Missing value at " + pos);
+        }
+    }
+
+    private void expect(char c) throws IOException {
+        if (peek() != c) {
+            throw new IOException("Expected '" + c + "' at " + pos);
+        }
+        pos++;
+    }
+
+    private int peek() {
+        skipWhitespace();
+        return payload[pos];
+    }
+
+    private void skipWhitespace() {
+        // bytes are signed, so those of non-ASCII characters would otherwise count as whitespace.
+        while (pos < payload.length && (payload[pos] & 0xff) <= ' ') {
+            pos++;
+        }
+    }
+
+    private boolean matches(byte[] expected, int start, int end) {
+        if (end - start != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (payload[start + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int parseHex(int start, int end) {
+        if (start == end || end - start > 8) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = Character.digit(payload[i], 16);
+            if (digit < 0) {
+                return -1;
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    private String name(int start, int end) {
+        for (int i = 0; i < names.length; i++) {
+            if (matches(nameBytes[i], start, end)) {
+                return names[i];
+            }
+        }
+        String name = new String(payload, start, end - start, StandardCharsets.UTF_8);
+        if (names.length < MAX_NAMES) {
+            nameBytes = Arrays.copyOf(nameBytes, nameBytes.length + 1);
+            names = Arrays.copyOf(names, names.length + 1);
+            nameBytes[nameBytes.length - 1] = Arrays.copyOfRange(payload, start, end);
+            names[names.length - 1] = name.intern();
+            return names[names.length - 1];
+        }
+        return name;
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.internal;
+
+import java.util.Arrays;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.binding.lutronmqtt.handler.RemoteEventListener;
+
+/**
+ * The {@link RemoteListenerIndex} finds the listener for a remote by its serial number. Lookups index straight into
+ * an open-addressed table of primitive keys, so they take no locks and box nothing; registration, which only happens
+ * when things come and go, replaces the table.
+ *
+ * @author William Welliver - Initial contribution
+ */
+public class RemoteListenerIndex {
+    private static final int NO_KEY = -1;
+
+    private volatile Table table = new Table(8);
+
+    /**
+     * Registers the listener for a remote, replacing any listener registered before.
+     */
+    public synchronized void register(int serial, RemoteEventListener listener) {
+        if (serial < 0) {
+            throw new IllegalArgumentException("Invalid serial number " + serial);
+        }
+        Table current = table;
+        int size = current.size + (current.get(serial) == null ? 1 : 0);
+        Table updated = new Table(size * 2 > current.keys.length ? current.keys.length * 2 : current.keys.length);
+        current.copyTo(updated, NO_KEY);
+        updated.put(serial, listener);
+        table = updated;
+    }
+
+    /**
+     * Removes the listener for a remote, if it is the one registered.
+     */
+    public synchronized void unregister(int serial, RemoteEventListener listener) {
+        Table current = table;
+        if (current.get(serial) != listener) {
+            return;
+        }
+        Table updated = new Table(current.keys.length);
+        current.copyTo(updated, serial);
+        table = updated;
+    }
+
+    /**
+     * @return the listener for the remote, or null if there is none.
+     */
+    public @Nullable RemoteEventListener get(int serial) {
+        return table.get(serial);
+    }
+
+    public int size() {
+        return table.size;
+    }
+
+    private static class Table {
+        final int[] keys;
+        final RemoteEventListener[] values;
+        int size;
+
+        Table(int capacity) {
+            keys = new int[capacity];
+            values = new RemoteEventListener[capacity];
+            Arrays.fill(keys, NO_KEY);
+        }
+
+        @Nullable
+        RemoteEventListener get(int key) {
+            int mask = keys.length - 1;
+            for (int i = hash(key) & mask;; i = (i + 1) & mask) {
+                int k = keys[i];
+                if (k == key) {
+                    return values[i];
+                }
+                if (k == NO_KEY) {
+                    return null;
+                }
+            }
+        }
+
+        void put(int key, RemoteEventListener value) {
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            while (keys[i] != NO_KEY && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] == NO_KEY) {
+                keys[i] = key;
+                size++;
+            }
+            values[i] = value;
+        }
+
+        void copyTo(Table other, int except) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != NO_KEY && keys[i] != except) {
+                    other.put(keys[i], values[i]);
+                }
+            }
+        }
+
+        private static int hash(int key) {
+            // serial numbers are close together, so spread them before masking.
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.internal;
+
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link StartupPipeline} follows a bridge through the stages of coming up: connecting to the broker,
+ * subscribing, asking for and receiving the device list, and querying device states. Each stage is started by the
+ * completion of the one before it; this class records when each is reached and logs the time spent in it.
+ *
+ * A reconnect starts the pipeline again from {@link Stage#CONNECTED}.
+ *
+ * @author William Welliver - Initial contribution
+ */
+public class StartupPipeline {
+    public enum Stage {
+        CONNECTING,
+        CONNECTED,
+        SUBSCRIBED,
+        INVENTORY_REQUESTED,
+        INVENTORY_RECEIVED,
+        STATES_QUERIED
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(StartupPipeline.class);
+
+    private final String name;
+    private Stage stage = Stage.STATES_QUERIED;
+    private long startedAt;
+    private long stageReachedAt;
+    private long lastDurationMillis = -1;
+
+    public StartupPipeline(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Starts the pipeline, as the bridge begins connecting.
+     */
+    public synchronized void start() {
+        startedAt = System.nanoTime();
+        stageReachedAt = startedAt;
+        stage = Stage.CONNECTING;
+    }
+
+    /**
+     * Records that a stage has been reached. Stages reached out of order, such as a device list received while the
+     * bridge is already up, are ignored, except {@link Stage#CONNECTED}, which after a reconnect restarts the pipeline
+     * from that stage.
+     *
+     * @return true if the pipeline moved on to the given stage.
+     */
+    public synchronized boolean reached(Stage next) {
+        long now = System.nanoTime();
+        if (next == Stage.CONNECTED && stage != Stage.CONNECTING) {
+            startedAt = now;
+            stageReachedAt = now;
+            stage = Stage.CONNECTED;
+            logger.debug("{}: reconnected, resuming", name);
+            return true;
+        }
+        if (next.ordinal() != stage.ordinal() + 1) {
+            return false;
+        }
+        logger.debug("{}: {} after {} ms (+{} ms)", name, next, TimeUnit.NANOSECONDS.toMillis(now - startedAt),
+                TimeUnit.NANOSECONDS.toMillis(now - stageReachedAt));
+        stage = next;
+        stageReachedAt = now;
+        if (next == Stage.STATES_QUERIED) {
+            lastDurationMillis = TimeUnit.NANOSECONDS.toMillis(now - startedAt);
+            logger.info("{}: up in {} ms", name, lastDurationMillis);
+        }
+        return true;
+    }
+
+    public synchronized Stage getStage() {
+        return stage;
+    }
+
+    /**
+     * @return how long the most recent startup or reconnect took, in milliseconds, or -1 if none has completed.
+     */
+    public synchronized long getLastDurationMillis() {
+        return lastDurationMillis;
+    }
+}
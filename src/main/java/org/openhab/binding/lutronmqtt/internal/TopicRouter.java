@@ -0,0 +1,182 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.internal;
+
+import java.util.Arrays;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * The {@link TopicRouter} maps MQTT topics to handlers through a character trie built from topic filters, so that
+ * the messages arriving on a single wildcard subscription can be routed by walking the topic once, without
+ * splitting it or comparing it against each known topic.
+ *
+ * Filters may use the MQTT wildcards: "+" matches exactly one level and "#", as the last level, matches any number
+ * of remaining levels, including none, so that "lutron/#" also matches "lutron". Where several filters match a topic, a literal level wins over "+", which wins over "#".
+ *
+ * Routes are added while the router is set up; once it has been handed to other threads it must only be read.
+ *
+ * @author William Welliver - Initial contribution
+ */
+public class TopicRouter<H> {
+    private final Node<H> root = new Node<>();
+    private int size;
+
+    /**
+     * Adds a route for a topic filter, replacing any handler already registered for the same filter.
+     */
+    public TopicRouter<H> add(String filter, H handler) {
+        Node<H> node = root;
+        String[] levels = filter.split("/", -1);
+        for (int l = 0; l < levels.length; l++) {
+            String level = levels[l];
+            if (l > 0) {
+                node = node.childOrCreate('/');
+            }
+            if (level.equals("#")) {
+                if (l != levels.length - 1) {
+                    throw new IllegalArgumentException("# must be the last level of " + filter);
+                }
+                if (node.multiLevel == null) {
+                    size++;
+                }
+                node.multiLevel = handler;
+                return this;
+            }
+            if (level.equals("+")) {
+                if (node.singleLevel == null) {
+                    node.singleLevel = new Node<>();
+                }
+                node = node.singleLevel;
+                continue;
+            }
+            for (int i = 0; i < level.length(); i++) {
+                char c = level.charAt(i);
+                if (c == '+' || c == '#') {
+                    throw new IllegalArgumentException("Wildcards must take up a whole level of " + filter);
+                }
+                node = node.childOrCreate(c);
+            }
+        }
+        if (node.handler == null) {
+            size++;
+        }
+        node.handler = handler;
+        return this;
+    }
+
+    /**
+     * @return the handler for the topic, or null if no route matches it.
+     */
+    public @Nullable H route(String topic) {
+        return match(root, topic, 0);
+    }
+
+    /**
+     * @return the number of routes.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Matches the topic from pos, the start of a level, against the routes below node.
+     */
+    private @Nullable H match(Node<H> node, String topic, int pos) {
+        int length = topic.length();
+        Node<H> n = node;
+        int i = pos;
+        while (n != null && i < length) {
+            char c = topic.charAt(i);
+            if (c == '/') {
+                break;
+            }
+            n = n.child(c);
+            i++;
+        }
+        if (n != null) {
+            H found = i == length ? last(n) : descend(n, topic, i);
+            if (found != null) {
+                return found;
+            }
+        }
+        if (node.singleLevel != null) {
+            int end = topic.indexOf('/', pos);
+            H found = end < 0 ? last(node.singleLevel) : descend(node.singleLevel, topic, end);
+            if (found != null) {
+                return found;
+            }
+        }
+        return node.multiLevel;
+    }
+
+    /**
+     * @return the handler for a topic that ends at node: its own, or that of a "#" level following it.
+     */
+    private @Nullable H last(Node<H> node) {
+        if (node.handler != null) {
+            return node.handler;
+        }
+        Node<H> next = node.child('/');
+        return next == null ? null : next.multiLevel;
+    }
+
+    /**
+     * Continues matching after the level separator at pos.
+     */
+    private @Nullable H descend(Node<H> node, String topic, int pos) {
+        Node<H> next = node.child('/');
+        return next == null ? null : match(next, topic, pos + 1);
+    }
+
+    private static class Node<H> {
+        // children are kept in small parallel arrays; topics branch little, so a scan beats hashing.
+        char[] keys = new char[0];
+        Node<H>[] children = newArray(0);
+        @Nullable
+        H handler;
+        @Nullable
+        H multiLevel;
+        @Nullable
+        Node<H> singleLevel;
+
+        @Nullable
+        Node<H> child(char c) {
+            char[] k = keys;
+            for (int i = 0; i < k.length; i++) {
+                if (k[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <H> Node<H>[] newArray(int length) {
+            // a generic array cannot be created directly; it only ever holds Node<H>, so the cast is safe.
+            return (Node<H>[]) new Node<?>[length];
+        }
+
+        Node<H> childOrCreate(char c) {
+            Node<H> child = child(c);
+            if (child == null) {
+                child = new Node<>();
+                keys = Arrays.copyOf(keys, keys.length + 1);
+                children = Arrays.copyOf(children, children.length + 1);
+                keys[keys.length - 1] = c;
+                children[children.length - 1] = child;
+            }
+            return child;
+        }
+    }
+}
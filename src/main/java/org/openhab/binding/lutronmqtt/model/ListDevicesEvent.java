@@ -0,0 +1,38 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.model;
+
+import java.util.List;
+
+/**
+ * The {@link ListDevicesEvent} carries the device inventory sent in response to a GetDevices command.
+ *
+ * @author William Welliver - Initial contribution
+ */
+public class ListDevicesEvent extends LutronGatewayEvent {
+    private final List<LutronDevice> devices;
+
+    public ListDevicesEvent(List<LutronDevice> devices) {
+        super(CMD_LIST_DEVICES);
+        this.devices = devices;
+    }
+
+    public List<LutronDevice> getDevices() {
+        return devices;
+    }
+
+    @Override
+    public String toString() {
+        return "ListDevicesEvent{" + "devices=" + devices.size() + '}';
+    }
+}
@@ -1,9 +1,11 @@
 package org.openhab.binding.lutronmqtt.model;
 
-import java.util.HashMap;
-import java.util.Map;
-
 public class LutronDevice {
+    /**
+     * Value returned by {@link #getProperty(int)} for a property that has not been reported yet.
+     */
+    public static final int PROPERTY_UNKNOWN = LutronPropertyStore.UNKNOWN;
+
     // int id;
     String name;
     // int integrationId;
@@ -13,18 +15,10 @@ public class LutronDevice {
     int serialNumber;
     int deviceClass;
 
-    Map<Integer, Integer> properties = new HashMap<>();
-    private long lastUpdated;
+    private final LutronPropertyStore properties = new LutronPropertyStore();
+    private volatile long lastUpdated;
 
-    public LutronDevice(Map<String, Object> d) {
-        setSerialNumber(Integer.parseInt((String) d.get("SerialNumber")));
-        setDeviceClass(Integer.parseInt((String) d.get("DeviceClass")));
-        setDescription((String) d.get("Description"));
-        setObjectId(Integer.parseInt((String) d.get("ObjectId")));
-        // setLinkAddress(Integer.parseInt((String) d.get("LinkAddress")));
-        setName((String) d.get("Name"));
-        // setId(Integer.parseInt((String) d.get("DeviceID")));
-        // setIntegrationId(Integer.parseInt((String) d.get("IntegrationID")));
+    public LutronDevice() {
     }
 
     // public int getId() {
@@ -91,10 +85,39 @@ public class LutronDevice {
         this.deviceClass = deviceClass;
     }
 
+    /**
+     * @return the last reported value of the property, or {@link #PROPERTY_UNKNOWN} if none has been reported.
+     */
     public int getProperty(int property) {
         return properties.get(property);
     }
 
+    public boolean hasProperty(int property) {
+        return properties.has(property);
+    }
+
+    /**
+     * @return when the property was last reported, in epoch milliseconds, or 0 if it has not been reported.
+     */
+    public long getPropertyLastUpdated(int property) {
+        return properties.getLastUpdated(property);
+    }
+
+    /**
+     * @return one more than the highest property number that may have been reported; useful for iterating with
+     *         {@link #hasProperty(int)}.
+     */
+    public int getPropertyNumberLimit() {
+        return properties.capacity();
+    }
+
+    /**
+     * @return when any property was last reported, in epoch milliseconds, or 0 if none has been reported.
+     */
+    public long getLastUpdated() {
+        return lastUpdated;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o)
@@ -135,12 +158,46 @@ public class LutronDevice {
                 + '\'' + ", serialNumber=" + serialNumber + ", deviceClass=" + deviceClass + '}';
     }
 
+    /**
+     * Copies the inventory attributes (name, description, serial number and device class) of another description of
+     * this device, keeping the properties reported so far.
+     *
+     * @return true if any attribute changed.
+     */
+    public boolean updateFrom(LutronDevice other) {
+        if (hashCode() == other.hashCode() && equals(other)) {
+            return false;
+        }
+        name = other.name;
+        description = other.description;
+        serialNumber = other.serialNumber;
+        deviceClass = other.deviceClass;
+        return true;
+    }
+
     public boolean hasUpdatedProperties() {
         return !properties.isEmpty();
     }
 
-    public void putProperty(int pnum, int pval) {
-        lastUpdated = System.currentTimeMillis();
-        properties.put(pnum, pval);
+    /**
+     * @return true if the value differs from the one previously reported.
+     */
+    public boolean putProperty(int pnum, int pval) {
+        long now = System.currentTimeMillis();
+        lastUpdated = now;
+        return properties.put(pnum, pval, now);
+    }
+
+    /**
+     * Sets a property to a value that was reported earlier, such as one read back from a snapshot.
+     *
+     * @param timestamp
+     *            when the value was reported, in epoch milliseconds
+     */
+    public void restoreProperty(int pnum, int pval, long timestamp) {
+        properties.put(pnum, pval, timestamp);
+        if (timestamp > lastUpdated) {
+            lastUpdated = timestamp;
+        }
     }
 }
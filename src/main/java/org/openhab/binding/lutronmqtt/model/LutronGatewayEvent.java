@@ -0,0 +1,40 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.model;
+
+/**
+ * The {@link LutronGatewayEvent} is a command message published by the gateway on lutron/events. Commands the
+ * binding understands are decoded into one of the subclasses; anything else is represented by this class with
+ * its command name only.
+ *
+ * @author William Welliver - Initial contribution
+ */
+public class LutronGatewayEvent {
+    public static final String CMD_LIST_DEVICES = "ListDevices";
+    public static final String CMD_RUNTIME_PROPERTY_UPDATE = "RuntimePropertyUpdate";
+
+    private final String command;
+
+    public LutronGatewayEvent(String command) {
+        this.command = command;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    @Override
+    public String toString() {
+        return "LutronGatewayEvent{" + "command='" + command + '\'' + '}';
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.model;
+
+import java.util.Arrays;
+
+/**
+ * The {@link LutronPropertyStore} holds the runtime property values of a single device. Lutron property numbers are
+ * small and dense (the level is property 1), so values are kept in an int array indexed by property number, with a
+ * parallel array of update timestamps. Properties that have never been reported read as {@link #UNKNOWN}.
+ *
+ * Reads and updates do not allocate once the store has grown to the highest property number the device reports.
+ * Updates are expected to come from a single thread at a time, while reads may come from any thread. The arrays are
+ * only replaced by fully copied ones, published through volatile fields, so a reader never sees a partly grown store.
+ *
+ * @author William Welliver - Initial contribution
+ */
+public class LutronPropertyStore {
+    /**
+     * Value returned for a property that has not been reported yet.
+     */
+    public static final int UNKNOWN = Integer.MIN_VALUE;
+
+    /**
+     * Property numbers above this are ignored, so that a bad message cannot make the store grow without bound.
+     */
+    public static final int MAX_PROPERTY_NUMBER = 255;
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    // replaced, never resized in place; updated is always published before values, and at least as long.
+    private volatile int[] values = newValues(INITIAL_CAPACITY);
+    private volatile long[] updated = new long[INITIAL_CAPACITY];
+    private volatile int count;
+
+    /**
+     * @return the property's value, or {@link #UNKNOWN} if it has not been reported.
+     */
+    public int get(int property) {
+        int[] v = values;
+        return property >= 0 && property < v.length ? v[property] : UNKNOWN;
+    }
+
+    public boolean has(int property) {
+        return get(property) != UNKNOWN;
+    }
+
+    /**
+     * @return when the property was last reported, in epoch milliseconds, or 0 if it has not been reported.
+     */
+    public long getLastUpdated(int property) {
+        long[] u = updated;
+        return property >= 0 && property < u.length ? u[property] : 0;
+    }
+
+    /**
+     * Sets a property value.
+     *
+     * @param timestamp
+     *            when the value was reported, in epoch milliseconds
+     * @return true if the value differs from the one previously held.
+     */
+    public boolean put(int property, int value, long timestamp) {
+        if (property < 0 || property > MAX_PROPERTY_NUMBER || value == UNKNOWN) {
+            return false;
+        }
+        int[] v = values;
+        long[] u = updated;
+        int previous = property < v.length ? v[property] : UNKNOWN;
+        if (property >= v.length) {
+            // the new value goes into the copies before they are published.
+            int capacity = Math.max(property + 1, v.length * 2);
+            int[] grownValues = Arrays.copyOf(v, capacity);
+            Arrays.fill(grownValues, v.length, capacity, UNKNOWN);
+            long[] grownUpdated = Arrays.copyOf(u, capacity);
+            grownValues[property] = value;
+            grownUpdated[property] = timestamp;
+            updated = grownUpdated;
+            values = grownValues;
+        } else {
+            u[property] = timestamp;
+            v[property] = value;
+        }
+        if (previous == UNKNOWN) {
+            count++;
+        }
+        return previous != value;
+    }
+
+    /**
+     * @return the number of properties that have been reported.
+     */
+    public int size() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * @return one more than the highest property number that may currently hold a value.
+     */
+    public int capacity() {
+        return values.length;
+    }
+
+    private static int[] newValues(int capacity) {
+        int[] v = new int[capacity];
+        Arrays.fill(v, UNKNOWN);
+        return v;
+    }
+}
@@ -0,0 +1,41 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.model;
+
+/**
+ * The {@link LutronStatusMessage} is the periodic announcement the gateway publishes on lutron/status.
+ *
+ * @author William Welliver - Initial contribution
+ */
+public class LutronStatusMessage {
+    public static final String STATE_RUNNING = "running";
+
+    private final String state;
+
+    public LutronStatusMessage(String state) {
+        this.state = state;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public boolean isRunning() {
+        return STATE_RUNNING.equals(state);
+    }
+
+    @Override
+    public String toString() {
+        return "LutronStatusMessage{" + "state='" + state + '\'' + '}';
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.model;
+
+/**
+ * The {@link RuntimePropertyUpdateEvent} reports new values for one or more properties of a single device. The
+ * property numbers and values are kept in parallel primitive arrays, of which the first {@link #getPropertyCount()}
+ * entries are valid.
+ *
+ * @author William Welliver - Initial contribution
+ */
+public class RuntimePropertyUpdateEvent extends LutronGatewayEvent {
+    private final int objectId;
+    private final int[] propertyNumbers;
+    private final int[] propertyValues;
+    private final int propertyCount;
+
+    public RuntimePropertyUpdateEvent(int objectId, int[] propertyNumbers, int[] propertyValues, int propertyCount) {
+        super(CMD_RUNTIME_PROPERTY_UPDATE);
+        this.objectId = objectId;
+        this.propertyNumbers = propertyNumbers;
+        this.propertyValues = propertyValues;
+        this.propertyCount = propertyCount;
+    }
+
+    public int getObjectId() {
+        return objectId;
+    }
+
+    public int getPropertyCount() {
+        return propertyCount;
+    }
+
+    public int getPropertyNumber(int index) {
+        return propertyNumbers[index];
+    }
+
+    public int getPropertyValue(int index) {
+        return propertyValues[index];
+    }
+
+    /**
+     * Copies the reported property values onto the given device.
+     *
+     * @param device
+     *            the device this update is for
+     */
+    public void applyTo(LutronDevice device) {
+        for (int i = 0; i < propertyCount; i++) {
+            device.putProperty(propertyNumbers[i], propertyValues[i]);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("RuntimePropertyUpdateEvent{objectId=").append(objectId)
+                .append(", properties=[");
+        for (int i = 0; i < propertyCount; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(propertyNumbers[i]).append('=').append(propertyValues[i]);
+        }
+        return sb.append("]}").toString();
+    }
+}
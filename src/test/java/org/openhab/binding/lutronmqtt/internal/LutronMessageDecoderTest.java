@@ -0,0 +1,203 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.internal;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+import org.openhab.binding.lutronmqtt.model.ListDevicesEvent;
+import org.openhab.binding.lutronmqtt.model.LutronDevice;
+import org.openhab.binding.lutronmqtt.model.LutronGatewayEvent;
+import org.openhab.binding.lutronmqtt.model.RuntimePropertyUpdateEvent;
+
+/**
+ * Tests for {@link LutronMessageDecoder}.
+ *
+ * @author William Welliver - Initial contribution
+ */
+public class LutronMessageDecoderTest {
+    private final LutronMessageDecoder decoder = new LutronMessageDecoder();
+
+    @Test
+    public void isListDevicesOnlyRecognizesTheCommandNamedFirst() {
+        Object[][] cases = { //
+                { "{\"cmd\":\"ListDevices\",\"args\":[]}", true }, //
+                { " \r\n\t{ \"cmd\" :\n \"ListDevices\" }", true }, //
+                { "{\"cmd\":\"ListDevices\"", true }, //
+                { "{\"args\":[],\"cmd\":\"ListDevices\"}", false }, //
+                { "{\"cmd\":\"RuntimePropertyUpdate\",\"args\":{}}", false }, //
+                { "{\"cmd\":\"ListDevicesNow\"}", false }, //
+                { "{\"cmd\":ListDevices}", false }, //
+                { "{\"Cmd\":\"ListDevices\"}", false }, //
+                { "[\"cmd\",\"ListDevices\"]", false }, //
+                { "{\"cmd\"", false }, //
+                { "{", false }, //
+                { "", false }, //
+        };
+        for (Object[] c : cases) {
+            assertEquals((String) c[0], c[1], decoder.isListDevices(utf8((String) c[0])));
+        }
+    }
+
+    @Test
+    public void readerDecodesUtf8() throws IOException {
+        Object[][] cases = { //
+                { utf8("running"), "running" }, //
+                { utf8("K\u00FCche"), "K\u00FCche" }, //
+                { utf8("\u7167\u660E 2"), "\u7167\u660E 2" }, //
+                { utf8("Lamp \uD83D\uDCA1 on"), "Lamp \uD83D\uDCA1 on" }, //
+                { bytes('a', 0xff, 'b'), "a\uFFFDb" }, //
+                // a lead byte whose sequence is cut short gives way to the bytes that follow it.
+                { bytes('a', 0xc3, 'b'), "a\uFFFDb" }, //
+                { bytes('a', 0xe7, 0x85, 'b'), "a\uFFFD\uFFFDb" }, //
+                { bytes('a', 0xf0, 0x9f, 0x92, 'b'), "a\uFFFD\uFFFD\uFFFDb" }, //
+                { bytes(0x80, 'b'), "\uFFFDb" }, //
+        };
+        for (Object[] c : cases) {
+            byte[] value = (byte[]) c[0];
+            byte[] payload = concat(utf8("{\"state\":\""), value, utf8("\"}"));
+            assertEquals((String) c[1], c[1], decoder.decodeStatus(payload).getState());
+        }
+    }
+
+    @Test
+    public void readerDecodesAcrossBufferBoundaries() throws IOException {
+        // longer than the reader's caller asks for at a time, with surrogate pairs falling on every offset.
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            name.append(i % 3 == 0 ? "\uD83D\uDCA1" : i % 3 == 1 ? "\u00E9" : "x");
+        }
+        String payload = "{\"cmd\":\"ListDevices\",\"args\":[{\"ObjectId\":\"1\",\"Name\":\"" + name + "\"}]}";
+        ListDevicesEvent event = (ListDevicesEvent) decoder.decodeGatewayEvent(utf8(payload));
+        assertEquals(name.toString(), event.getDevices().get(0).getName());
+    }
+
+    @Test
+    public void decodesDeviceListsWhateverTheKeyOrder() throws IOException {
+        String[] payloads = { //
+                "{\"cmd\":\"ListDevices\",\"args\":[{\"ObjectId\":\"12\",\"SerialNumber\":\"34\","
+                        + "\"DeviceClass\":\"70189313\",\"Name\":\"K\u00FCche Licht\","
+                        + "\"Description\":\"\u7167\u660E\"}]}", //
+                "{\"args\":[{\"Description\":\"\u7167\u660E\",\"Name\":\"K\u00FCche Licht\",\"DeviceClass\":70189313,"
+                        + "\"SerialNumber\":34,\"ObjectId\":12}],\"cmd\":\"ListDevices\"}", //
+                "{\"extra\":{\"nested\":[1,2]},\"args\":[null,{\"Unknown\":true,\"ObjectId\":\"12\","
+                        + "\"Name\":\"K\u00FCche Licht\",\"Description\":\"\u7167\u660E\",\"SerialNumber\":\"34\","
+                        + "\"DeviceClass\":\"70189313\"}],\"cmd\":\"ListDevices\"}", //
+        };
+        for (String payload : payloads) {
+            LutronGatewayEvent event = decoder.decodeGatewayEvent(utf8(payload));
+            assertTrue(payload, event instanceof ListDevicesEvent);
+            assertEquals(payload, 1, ((ListDevicesEvent) event).getDevices().size());
+            LutronDevice device = ((ListDevicesEvent) event).getDevices().get(0);
+            assertEquals(payload, 12, device.getObjectId());
+            assertEquals(payload, 34, device.getSerialNumber());
+            assertEquals(payload, 70189313, device.getDeviceClass());
+            assertEquals(payload, "K\u00FCche Licht", device.getName());
+            assertEquals(payload, "\u7167\u660E", device.getDescription());
+        }
+    }
+
+    @Test
+    public void decodesPropertyUpdatesWhateverTheKeyOrder() throws IOException {
+        String[] payloads = { //
+                "{\"cmd\":\"RuntimePropertyUpdate\","
+                        + "\"args\":{\"ObjectId\":\"7\",\"Properties\":[[1,\"75\"],[\"2\",0]]}}", //
+                "{\"args\":{\"Properties\":[[1,75],[2,0]],\"ObjectId\":7},\"cmd\":\"RuntimePropertyUpdate\"}", //
+                // properties that are not integer pairs are passed over.
+                "{\"cmd\":\"RuntimePropertyUpdate\",\"args\":{\"ObjectId\":7,"
+                        + "\"Properties\":[[1,75,99],[3],[4,1.5],\"x\",[5,\"on\"],[2,0]]}}", //
+        };
+        for (String payload : payloads) {
+            LutronGatewayEvent event = decoder.decodeGatewayEvent(utf8(payload));
+            assertTrue(payload, event instanceof RuntimePropertyUpdateEvent);
+            RuntimePropertyUpdateEvent update = (RuntimePropertyUpdateEvent) event;
+            assertEquals(payload, 7, update.getObjectId());
+            assertEquals(payload, 2, update.getPropertyCount());
+            assertEquals(payload, 1, update.getPropertyNumber(0));
+            assertEquals(payload, 75, update.getPropertyValue(0));
+            assertEquals(payload, 2, update.getPropertyNumber(1));
+            assertEquals(payload, 0, update.getPropertyValue(1));
+        }
+    }
+
+    @Test
+    public void decodesOtherCommandsByName() throws IOException {
+        Object[][] cases = { //
+                { "{\"cmd\":\"Ping\"}", "Ping" }, //
+                { "{\"args\":{\"ObjectId\":1},\"cmd\":\"Ping\"}", "Ping" }, //
+                { "{\"args\":[]}", null }, //
+                { "{}", null }, //
+        };
+        for (Object[] c : cases) {
+            LutronGatewayEvent event = decoder.decodeGatewayEvent(utf8((String) c[0]));
+            if (c[1] == null) {
+                assertNull((String) c[0], event);
+            } else {
+                assertNotNull((String) c[0], event);
+                assertEquals((String) c[0], c[1], event.getCommand());
+                assertFalse((String) c[0], event instanceof RuntimePropertyUpdateEvent);
+            }
+        }
+    }
+
+    @Test
+    public void rejectsMalformedPayloads() {
+        String[] payloads = { //
+                "", //
+                "[1,2]", //
+                "\"ListDevices\"", //
+                "{\"cmd\":\"ListDevices\",\"args\":[{\"ObjectId\":1", //
+                "{\"cmd\":\"ListDevices\",\"args\":[{\"ObjectId\":\"twelve\"}]}", //
+                "{\"cmd\":\"ListDevices\",\"args\":[{\"Name\":{\"first\":1}}]}", //
+                "{\"cmd\":\"RuntimePropertyUpdate\",\"args\":{\"ObjectId\":7,\"Properties\":[[1,2]}}", //
+                "{\"cmd\":}", //
+        };
+        for (String payload : payloads) {
+            try {
+                decoder.decodeGatewayEvent(utf8(payload));
+                fail("No exception for " + payload);
+            } catch (IOException e) {
+                // expected
+            }
+        }
+    }
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] b = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            b[i] = (byte) values[i];
+        }
+        return b;
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        int length = 0;
+        for (byte[] part : parts) {
+            length += part.length;
+        }
+        byte[] result = new byte[length];
+        int pos = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, result, pos, part.length);
+            pos += part.length;
+        }
+        return result;
+    }
+}
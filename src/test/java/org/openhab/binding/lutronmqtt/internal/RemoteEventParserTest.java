@@ -0,0 +1,163 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.internal;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link RemoteEventParser}.
+ *
+ * @author William Welliver - Initial contribution
+ */
+public class RemoteEventParserTest {
+    private final RemoteEventParser parser = new RemoteEventParser();
+
+    @Test
+    public void parsesEventsWhateverTheKeyOrder() throws IOException {
+        Object[][] cases = { //
+                { "{\"serial\" : \"C726CA\", \"action\": \"down\", \"button\": \"select\"}", 0xC726CA, "select",
+                        "down" }, //
+                { "{\"button\":\"select\",\"serial\":\"c726ca\",\"action\":\"up\"}", 0xC726CA, "select", "up" }, //
+                { "{\"action\":\"down\",\"button\":\"on\",\"serial\":\"1\"}", 1, "on", "down" }, //
+                { "\n{\n\t\"serial\" :\"7FFFFFFF\" ,\r\n\"action\":\"down\",\"button\":\"off\"\n}\n", 0x7FFFFFFF, "off",
+                        "down" }, //
+                // other keys and literal values are passed over.
+                { "{\"time\":1589312345,\"serial\":\"A1\",\"battery\":null,\"ok\":true,\"action\":\"up\","
+                        + "\"button\":\"raise\",\"source\":\"pico\"}", 0xA1, "raise", "up" }, //
+                { "{\"serial\":\"A1\",\"action\":\"down\",\"button\":\"K\u00FCche \u7167\u660E \uD83D\uDCA1\"}",
+                        0xA1, "K\u00FCche \u7167\u660E \uD83D\uDCA1", "down" }, //
+                { "{\"serial\":\"A1\",\"action\":\"down\",\"button\":\"\"}", 0xA1, "", "down" }, //
+        };
+        for (Object[] c : cases) {
+            String payload = (String) c[0];
+            assertTrue(payload, parser.parse(utf8(payload)));
+            assertEquals(payload, c[1], parser.getSerial());
+            assertEquals(payload, c[2], parser.getButton());
+            assertEquals(payload, c[3], parser.getAction());
+        }
+    }
+
+    @Test
+    public void reportsIncompleteEvents() throws IOException {
+        String[] payloads = { //
+                "{}", //
+                "{\"serial\":\"C726CA\",\"action\":\"down\"}", //
+                "{\"serial\":\"C726CA\",\"button\":\"select\"}", //
+                "{\"action\":\"down\",\"button\":\"select\"}", //
+                "{\"serial\":13068490,\"action\":\"down\",\"button\":\"select\"}", //
+                "{\"serial\":\"\",\"action\":\"down\",\"button\":\"select\"}", //
+                "{\"serial\":\"C726CG\",\"action\":\"down\",\"button\":\"select\"}", //
+                "{\"serial\":\"-1\",\"action\":\"down\",\"button\":\"select\"}", //
+                "{\"serial\":\"FFFFFFFF\",\"action\":\"down\",\"button\":\"select\"}", //
+                "{\"serial\":\"100000000\",\"action\":\"down\",\"button\":\"select\"}", //
+                "{\"Serial\":\"C726CA\",\"action\":\"down\",\"button\":\"select\"}", //
+                "{\"serial\":\"C726CA\",\"action\":null,\"button\":\"select\"}", //
+        };
+        for (String payload : payloads) {
+            assertFalse(payload, parser.parse(utf8(payload)));
+        }
+    }
+
+    @Test
+    public void rejectsMalformedPayloads() {
+        String[] payloads = { //
+                "", //
+                " ", //
+                "[]", //
+                "\"serial\"", //
+                "{", //
+                "{\"serial\"", //
+                "{\"serial\":\"C726", //
+                "{\"serial\":\"C726CA\"", //
+                "{\"serial\":\"C726CA\",", //
+                "{\"serial\":\"C726CA\",}", //
+                "{\"serial\" \"C726CA\"}", //
+                "{\"serial\":\"C726CA\" \"action\":\"down\"}", //
+                "{serial:\"C726CA\"}", //
+                "{\"serial\":}", //
+                "{\"serial\":\"C726CA\",\"extra\":{\"nested\":1},\"action\":\"down\",\"button\":\"select\"}", //
+                "{\"serial\":\"C726CA\",\"extra\":[1],\"action\":\"down\",\"button\":\"select\"}", //
+                "{\"serial\":\"C726CA\",\"action\":\"down\",\"button\":\"a\\\"b\"}", //
+                "{\u00FC\"serial\":\"C726CA\",\"action\":\"down\",\"button\":\"select\"}", //
+        };
+        for (String payload : payloads) {
+            try {
+                parser.parse(utf8(payload));
+                fail("No exception for " + payload);
+            } catch (IOException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void keepsNothingOfTheLastEventWhenAParseFails() throws IOException {
+        assertTrue(parser.parse(utf8("{\"serial\":\"C726CA\",\"action\":\"down\",\"button\":\"select\"}")));
+        try {
+            parser.parse(utf8("{\"serial\":\"A1\",\"action\":"));
+            fail("No exception for a truncated payload");
+        } catch (IOException e) {
+            // expected
+        }
+        assertNull(parser.getAction());
+        assertNull(parser.getButton());
+    }
+
+    @Test
+    public void reusesNamesAlreadySeen() throws IOException {
+        parser.parse(utf8("{\"serial\":\"1\",\"action\":\"down\",\"button\":\"select\"}"));
+        String button = parser.getButton();
+        String action = parser.getAction();
+        parser.parse(utf8("{\"button\":\"select\",\"action\":\"down\",\"serial\":\"2\"}"));
+        assertSame(button, parser.getButton());
+        assertSame(action, parser.getAction());
+
+        // names that share a prefix are told apart.
+        String[] buttons = { "sel", "selectx", "select", "s" };
+        for (String b : buttons) {
+            parser.parse(utf8("{\"serial\":\"1\",\"action\":\"down\",\"button\":\"" + b + "\"}"));
+            assertEquals(b, parser.getButton());
+        }
+    }
+
+    @Test
+    public void keepsParsingNamesOnceTheTableIsFull() throws IOException {
+        for (int i = 0; i < 200; i++) {
+            String button = "button" + i;
+            assertTrue(parser.parse(utf8("{\"serial\":\"1\",\"action\":\"down\",\"button\":\"" + button + "\"}")));
+            assertEquals(button, parser.getButton());
+        }
+        parser.parse(utf8("{\"serial\":\"1\",\"action\":\"down\",\"button\":\"button150\"}"));
+        assertEquals("button150", parser.getButton());
+    }
+
+    @Test
+    public void getReturnsOneParserPerThread() throws InterruptedException {
+        RemoteEventParser[] other = new RemoteEventParser[1];
+        Thread thread = new Thread(() -> other[0] = RemoteEventParser.get());
+        thread.start();
+        thread.join();
+        assertSame(RemoteEventParser.get(), RemoteEventParser.get());
+        assertNotNull(other[0]);
+        assertTrue(other[0] != RemoteEventParser.get());
+    }
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
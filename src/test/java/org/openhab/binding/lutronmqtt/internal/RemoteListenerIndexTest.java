@@ -0,0 +1,171 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.internal;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.openhab.binding.lutronmqtt.handler.RemoteEventListener;
+
+/**
+ * Tests for {@link RemoteListenerIndex}.
+ *
+ * @author William Welliver - Initial contribution
+ */
+public class RemoteListenerIndexTest {
+    // the index starts out with 8 slots.
+    private static final int INITIAL_SLOTS = 8;
+
+    private final RemoteListenerIndex index = new RemoteListenerIndex();
+
+    @Test
+    public void findsRegisteredListeners() {
+        int[] serials = { 0, 1, 2, 0xC726CA, 0xC726CB, 0x7FFFFFFF, 12345678 };
+        RemoteEventListener[] listeners = register(serials);
+        for (int i = 0; i < serials.length; i++) {
+            assertSame(Integer.toHexString(serials[i]), listeners[i], index.get(serials[i]));
+        }
+        int[] unknown = { 3, 0xC726CC, 0x7FFFFFFE, -1, Integer.MIN_VALUE };
+        for (int serial : unknown) {
+            assertNull(Integer.toHexString(serial), index.get(serial));
+        }
+        assertEquals(serials.length, index.size());
+    }
+
+    @Test
+    public void findsListenersWhoseSerialsCollide() {
+        int[] serials = collidingSerials(4, INITIAL_SLOTS);
+        RemoteEventListener[] listeners = register(serials);
+        for (int i = 0; i < serials.length; i++) {
+            assertSame(Integer.toHexString(serials[i]), listeners[i], index.get(serials[i]));
+        }
+        // a serial sharing their slot that was never registered is looked up past all of them.
+        assertNull(index.get(collidingSerials(5, INITIAL_SLOTS)[4]));
+    }
+
+    @Test
+    public void keepsCollidingListenersReachableWhenOneIsRemoved() {
+        int[] serials = collidingSerials(4, INITIAL_SLOTS);
+        RemoteEventListener[] listeners = register(serials);
+        // removing each position in the probe sequence, from the first to the last.
+        for (int removed = 0; removed < serials.length; removed++) {
+            index.unregister(serials[removed], listeners[removed]);
+            assertNull(index.get(serials[removed]));
+            for (int i = removed + 1; i < serials.length; i++) {
+                assertSame(Integer.toHexString(serials[i]), listeners[i], index.get(serials[i]));
+            }
+            assertEquals(serials.length - removed - 1, index.size());
+        }
+    }
+
+    @Test
+    public void growsPastItsInitialSize() {
+        int[] serials = new int[1000];
+        for (int i = 0; i < serials.length; i++) {
+            // close together, as the serial numbers of remotes from one batch are.
+            serials[i] = 0xC72600 + i;
+        }
+        RemoteEventListener[] listeners = register(serials);
+        assertEquals(serials.length, index.size());
+        for (int i = 0; i < serials.length; i++) {
+            assertSame(Integer.toHexString(serials[i]), listeners[i], index.get(serials[i]));
+        }
+        for (int i = 0; i < serials.length; i += 2) {
+            index.unregister(serials[i], listeners[i]);
+        }
+        for (int i = 0; i < serials.length; i++) {
+            assertSame(Integer.toHexString(serials[i]), i % 2 == 0 ? null : listeners[i], index.get(serials[i]));
+        }
+        assertEquals(serials.length / 2, index.size());
+    }
+
+    @Test
+    public void replacesAndOnlyRemovesTheRegisteredListener() {
+        int serial = 0xC726CA;
+        RemoteEventListener first = listener();
+        RemoteEventListener second = listener();
+        index.register(serial, first);
+        index.register(serial, second);
+        assertSame(second, index.get(serial));
+        assertEquals(1, index.size());
+
+        // a thing that has been replaced cannot remove its successor.
+        index.unregister(serial, first);
+        assertSame(second, index.get(serial));
+        index.unregister(serial, second);
+        assertNull(index.get(serial));
+        assertEquals(0, index.size());
+
+        index.unregister(serial, second);
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void rejectsNegativeSerials() {
+        int[] serials = { -1, Integer.MIN_VALUE };
+        for (int serial : serials) {
+            try {
+                index.register(serial, listener());
+                fail("No exception for " + serial);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+        assertEquals(0, index.size());
+    }
+
+    private RemoteEventListener[] register(int[] serials) {
+        RemoteEventListener[] listeners = new RemoteEventListener[serials.length];
+        for (int i = 0; i < serials.length; i++) {
+            listeners[i] = listener();
+            index.register(serials[i], listeners[i]);
+        }
+        return listeners;
+    }
+
+    private static RemoteEventListener listener() {
+        // not a lambda, which could be one shared instance.
+        return new RemoteEventListener() {
+            @Override
+            public void onRemoteEvent(String button, String action) {
+            }
+        };
+    }
+
+    /**
+     * @return the first serial numbers, from 1, that the index places in the same slot of a table of the given size.
+     */
+    private static int[] collidingSerials(int count, int slots) {
+        List<Integer> found = new ArrayList<>();
+        int target = slot(1, slots);
+        for (int serial = 1; found.size() < count; serial++) {
+            if (slot(serial, slots) == target) {
+                found.add(serial);
+            }
+        }
+        int[] serials = new int[count];
+        for (int i = 0; i < count; i++) {
+            serials[i] = found.get(i);
+        }
+        return serials;
+    }
+
+    private static int slot(int serial, int slots) {
+        // the hash RemoteListenerIndex spreads serial numbers with.
+        int h = serial * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (slots - 1);
+    }
+}
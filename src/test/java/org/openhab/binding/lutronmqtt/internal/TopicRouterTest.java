@@ -0,0 +1,135 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.lutronmqtt.internal;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link TopicRouter}.
+ *
+ * @author William Welliver - Initial contribution
+ */
+public class TopicRouterTest {
+
+    @Test
+    public void routesLiteralTopics() {
+        TopicRouter<String> router = new TopicRouter<String>().add("lutron/status", "status")
+                .add("lutron/events", "events").add("lutron/remote", "remote");
+        String[][] cases = { //
+                { "lutron/status", "status" }, //
+                { "lutron/events", "events" }, //
+                { "lutron/remote", "remote" }, //
+                { "lutron/command", null }, //
+                { "lutron/status/extra", null }, //
+                { "lutron/stat", null }, //
+                { "lutron/statuses", null }, //
+                { "lutron", null }, //
+                { "lutron/", null }, //
+                { "/lutron/status", null }, //
+                { "Lutron/status", null }, //
+                { "", null }, //
+        };
+        assertRoutes(router, cases);
+        assertEquals(3, router.size());
+    }
+
+    @Test
+    public void singleLevelWildcardMatchesExactlyOneLevel() {
+        TopicRouter<String> router = new TopicRouter<String>().add("+/status", "any status")
+                .add("lutron/+/remote", "remote").add("lutron/+", "lutron level");
+        String[][] cases = { //
+                { "hub1/status", "any status" }, //
+                { "/status", "any status" }, //
+                { "a/b/status", null }, //
+                { "lutron/hub1/remote", "remote" }, //
+                { "lutron//remote", "remote" }, //
+                { "lutron/hub1/hub2/remote", null }, //
+                { "lutron/events", "lutron level" }, //
+                { "lutron/", "lutron level" }, //
+                { "lutron", null }, //
+                // "lutron/+" is the more specific filter, as its first level is literal.
+                { "lutron/status", "lutron level" }, //
+        };
+        assertRoutes(router, cases);
+    }
+
+    @Test
+    public void multiLevelWildcardMatchesAnyRemainingLevels() {
+        TopicRouter<String> router = new TopicRouter<String>().add("lutron/#", "lutron")
+                .add("lutron/status", "status").add("lutron/+/remote", "remote").add("other/+/#", "other");
+        String[][] cases = { //
+                { "lutron/status", "status" }, //
+                { "lutron/hub1/remote", "remote" }, //
+                { "lutron/events", "lutron" }, //
+                { "lutron/status/extra", "lutron" }, //
+                { "lutron/hub1/remote/extra", "lutron" }, //
+                { "lutron/a/b/c/d", "lutron" }, //
+                { "lutron/", "lutron" }, //
+                // "#" also matches the level before it.
+                { "lutron", "lutron" }, //
+                { "lutronic", null }, //
+                { "other/a", "other" }, //
+                { "other/a/b", "other" }, //
+                { "other", null }, //
+                { "elsewhere/status", null }, //
+        };
+        assertRoutes(router, cases);
+    }
+
+    @Test
+    public void multiLevelWildcardAtTheRootMatchesEverythingElse() {
+        TopicRouter<String> router = new TopicRouter<String>().add("#", "root").add("lutron/status", "status")
+                .add("+/events", "events");
+        String[][] cases = { //
+                { "lutron/status", "status" }, //
+                { "hub/events", "events" }, //
+                { "lutron/stat", "root" }, //
+                { "lutron", "root" }, //
+                { "a/b/c", "root" }, //
+                { "/", "root" }, //
+                { "/lutron/status", "root" }, //
+                { "", "root" }, //
+        };
+        assertRoutes(router, cases);
+    }
+
+    @Test
+    public void replacesTheHandlerOfAnExistingFilter() {
+        TopicRouter<String> router = new TopicRouter<String>().add("lutron/status", "first").add("lutron/#", "all")
+                .add("lutron/status", "second").add("lutron/#", "everything");
+        assertEquals("second", router.route("lutron/status"));
+        assertEquals("everything", router.route("lutron/events"));
+        assertEquals(2, router.size());
+    }
+
+    @Test
+    public void rejectsMisplacedWildcards() {
+        String[] filters = { "lutron/#/status", "#/status", "lutron/stat+", "lutron/+x/status", "lutron/st#" };
+        for (String filter : filters) {
+            try {
+                new TopicRouter<String>().add(filter, "handler");
+                fail("No exception for " + filter);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    private static void assertRoutes(TopicRouter<String> router, String[][] cases) {
+        for (String[] c : cases) {
+            assertEquals("[" + c[0] + "]", c[1], router.route(c[0]));
+        }
+    }
+}